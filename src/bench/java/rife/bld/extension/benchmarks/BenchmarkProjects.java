@@ -0,0 +1,96 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension.benchmarks;
+
+import rife.bld.BaseProject;
+import rife.bld.Project;
+import rife.bld.dependencies.VersionNumber;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Provides the projects and files used by the benchmarks.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+final class BenchmarkProjects {
+    private BenchmarkProjects() {
+        // no-op
+    }
+
+    /**
+     * Creates a project.
+     *
+     * @param workDirectory the project's work directory
+     * @param name          the project's name, also used as the last package component
+     * @return the project
+     */
+    static BaseProject project(File workDirectory, String name) {
+        return new Project() {
+            @Override
+            public VersionNumber version() {
+                return new VersionNumber(2, 1, 3);
+            }
+
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public String pkg() {
+                return "com.example." + name;
+            }
+
+            @Override
+            public File workDirectory() {
+                return workDirectory;
+            }
+        };
+    }
+
+    /**
+     * Copies the test template into the given directory.
+     *
+     * @param directory the directory
+     * @return the template file
+     * @throws IOException if an I/O error occurs
+     */
+    static File customTemplate(Path directory) throws IOException {
+        var template = directory.resolve("version_bench.txt");
+        Files.copy(Path.of("src", "test", "resources", "version_test.txt"), template);
+        return template.toFile();
+    }
+
+    /**
+     * Deletes the given directory recursively.
+     *
+     * @param directory the directory
+     * @throws IOException if an I/O error occurs
+     */
+    static void delete(Path directory) throws IOException {
+        try (var paths = Files.walk(directory)) {
+            for (var path : paths.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
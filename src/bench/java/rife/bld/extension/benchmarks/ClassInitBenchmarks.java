@@ -0,0 +1,122 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import rife.bld.extension.BuiltInTemplate;
+import rife.bld.extension.EpochStrategy;
+import rife.bld.extension.GeneratedVersion;
+
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading and initializing the generated class, as done the first time one of its fields is read, for each
+ * built-in template.
+ * <p>
+ * Each invocation defines the class in a new class loader. Since {@code java.util.Date} is already loaded in the
+ * benchmark JVM, this only measures the cost of the class itself and its static initializer.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassInitBenchmarks {
+    @Param({"DEFAULT", "FAST_STARTUP"})
+    public BuiltInTemplate builtInTemplate;
+    private final Map<String, byte[]> classes = new HashMap<>();
+    private String className;
+    private Path tmpDir;
+
+    @Benchmark
+    public Class<?> initializeClass() throws ClassNotFoundException {
+        return Class.forName(className, true, new BytesClassLoader(classes));
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tmpDir = Files.createTempDirectory("class-init-bench");
+        var generatedVersion = new GeneratedVersion();
+        generatedVersion.setProject(BenchmarkProjects.project(tmpDir.toFile(), "bench"));
+        generatedVersion.setDirectory(tmpDir.resolve("src").toFile());
+        generatedVersion.setEpochStrategy(EpochStrategy.fixed(1_700_000_000_000L));
+        generatedVersion.setBuiltInTemplate(builtInTemplate);
+        generatedVersion.generate();
+        className = generatedVersion.getPackageName() + '.' + generatedVersion.getClassName();
+
+        var classesDir = tmpDir.resolve("classes");
+        if (ToolProvider.getSystemJavaCompiler().run(null, null, null, "-d", classesDir.toString(),
+                generatedVersion.getClassFile().getPath()) != 0) {
+            throw new IllegalStateException("Unable to compile: " + generatedVersion.getClassFile());
+        }
+        try (var files = Files.walk(classesDir)) {
+            for (var file : files.filter(f -> f.toString().endsWith(".class")).toList()) {
+                var name = classesDir.relativize(file).toString().replace(File.separatorChar, '.');
+                classes.put(name.substring(0, name.length() - ".class".length()), Files.readAllBytes(file));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkProjects.delete(tmpDir);
+    }
+
+    /**
+     * Defines the compiled classes, delegating everything else to the platform class loader.
+     */
+    private static final class BytesClassLoader extends ClassLoader {
+        private final Map<String, byte[]> classes;
+
+        BytesClassLoader(Map<String, byte[]> classes) {
+            super(ClassLoader.getPlatformClassLoader());
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            var bytes = classes.get(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import rife.bld.BaseProject;
+import rife.bld.extension.GeneratedVersionBatchOperation;
+import rife.bld.extension.GeneratedVersionOperation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the full execution of the operation for a single target, and of the batch operation for many targets.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecuteBenchmarks {
+    @Param({"1", "10", "60"})
+    public int targets;
+    private List<BaseProject> projects;
+    private Path tmpDir;
+
+    @Benchmark
+    public void executeBatch() throws Exception {
+        new GeneratedVersionBatchOperation()
+                .fromProjects(projects)
+                .silent(true)
+                .execute();
+    }
+
+    @Benchmark
+    public void executeEach() throws Exception {
+        for (var project : projects) {
+            new GeneratedVersionOperation()
+                    .fromProject(project)
+                    .silent(true)
+                    .execute();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tmpDir = Files.createTempDirectory("execute-bench");
+        projects = new ArrayList<>(targets);
+        for (var i = 0; i < targets; i++) {
+            projects.add(BenchmarkProjects.project(tmpDir.resolve("module" + i).toFile(), "module" + i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkProjects.delete(tmpDir);
+    }
+}
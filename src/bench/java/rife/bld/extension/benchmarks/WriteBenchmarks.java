@@ -0,0 +1,114 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import rife.bld.extension.EpochStrategy;
+import rife.bld.extension.GeneratedVersion;
+import rife.template.Template;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing the version class when it does not exist yet (cold), and when it is already up-to-date (warm).
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBenchmarks {
+    private GeneratedVersion generatedVersion;
+    private Template template;
+    private Path tmpDir;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tmpDir = Files.createTempDirectory("write-bench");
+        generatedVersion = new GeneratedVersion();
+        generatedVersion.setProject(BenchmarkProjects.project(tmpDir.toFile(), "bench"));
+        generatedVersion.setDirectory(tmpDir.toFile());
+        generatedVersion.setEpochStrategy(EpochStrategy.fixed(0L));
+        template = generatedVersion.buildTemplate();
+    }
+
+    @Setup(Level.Invocation)
+    public void deleteClassFile() throws IOException {
+        if (generatedVersion.getClassFile() != null) {
+            Files.deleteIfExists(generatedVersion.getClassFile().toPath());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkProjects.delete(tmpDir);
+    }
+
+    @Benchmark
+    public boolean writeTemplateCold() throws IOException {
+        return generatedVersion.writeTemplate(template);
+    }
+
+    /**
+     * Holds a version class that has already been written.
+     */
+    @State(Scope.Benchmark)
+    public static class Warm {
+        GeneratedVersion generatedVersion;
+        Template template;
+        Path tmpDir;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            tmpDir = Files.createTempDirectory("write-bench-warm");
+            generatedVersion = new GeneratedVersion();
+            generatedVersion.setProject(BenchmarkProjects.project(tmpDir.toFile(), "bench"));
+            generatedVersion.setDirectory(tmpDir.toFile());
+            generatedVersion.setEpochStrategy(EpochStrategy.fixed(0L));
+            template = generatedVersion.buildTemplate();
+            generatedVersion.writeTemplate(template);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            BenchmarkProjects.delete(tmpDir);
+        }
+    }
+
+    @Benchmark
+    public boolean writeTemplateWarm(Warm warm) throws IOException {
+        return warm.generatedVersion.writeTemplate(warm.template);
+    }
+}
@@ -18,11 +18,16 @@ package rife.bld.extension;
 
 import rife.bld.BuildCommand;
 import rife.bld.Project;
+import rife.bld.operations.exceptions.ExitStatusException;
 import rife.bld.publish.PublishDeveloper;
 import rife.bld.publish.PublishLicense;
 import rife.bld.publish.PublishScm;
 
+import javax.tools.ToolProvider;
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 import static rife.bld.dependencies.Repository.*;
@@ -44,6 +49,7 @@ public class GeneratedVersionOperationBuild extends Project {
         repositories = List.of(MAVEN_LOCAL, MAVEN_CENTRAL, RIFE2_SNAPSHOTS, RIFE2_RELEASES);
 
         var junit = version(6, 0, 1);
+        var jmh = version(1, 37);
         scope(compile)
                 .include(dependency("com.uwyn.rife2", "bld", version(2, 3, 0)));
         scope(provided)
@@ -55,7 +61,9 @@ public class GeneratedVersionOperationBuild extends Project {
                 .include(dependency("org.junit.jupiter", "junit-jupiter", junit))
                 .include(dependency("org.junit.platform", "junit-platform-console-standalone", junit))
                 .include(dependency("org.assertj", "assertj-core",
-                        version(3, 27, 6)));
+                        version(3, 27, 6)))
+                .include(dependency("org.openjdk.jmh", "jmh-core", jmh))
+                .include(dependency("org.openjdk.jmh", "jmh-generator-annprocess", jmh));
 
         precompileOperation()
                 .templateTypes(TXT);
@@ -107,6 +115,40 @@ public class GeneratedVersionOperationBuild extends Project {
         new GeneratedVersionOperationBuild().start(args);
     }
 
+    @BuildCommand(summary = "Runs the JMH benchmarks")
+    public void jmh() throws Exception {
+        compile();
+
+        var benchDirectory = new File(buildDirectory(), "bench");
+        var classpath = new ArrayList<>(testClasspath());
+        List<String> sources;
+        try (var files = Files.walk(Path.of(srcDirectory().getPath(), "bench", "java"))) {
+            sources = files.filter(f -> f.toString().endsWith(".java")).map(Path::toString).toList();
+        }
+
+        var javac = new ArrayList<>(List.of("-d", benchDirectory.getPath(),
+                "-cp", String.join(File.pathSeparator, classpath),
+                "-processor", "org.openjdk.jmh.generators.BenchmarkProcessor",
+                "--release", String.valueOf(javaRelease)));
+        javac.addAll(sources);
+        if (ToolProvider.getSystemJavaCompiler().run(null, null, null, javac.toArray(new String[0])) != 0) {
+            throw new ExitStatusException(ExitStatusException.EXIT_FAILURE);
+        }
+
+        // the benchmarks to run can be selected with the jmh.include property, e.g.: jmh.include=WriteBenchmarks
+        var command = new ArrayList<>(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", benchDirectory.getPath() + File.pathSeparator + String.join(File.pathSeparator, classpath),
+                "org.openjdk.jmh.Main", "-rf", "json", "-rff", new File(benchDirectory, "results.json").getPath()));
+        var include = property("jmh.include");
+        if (include != null) {
+            command.add(include);
+        }
+        var status = new ProcessBuilder(command).inheritIO().start().waitFor();
+        if (status != 0) {
+            throw new ExitStatusException(status);
+        }
+    }
+
     @BuildCommand(summary = "Runs PMD analysis")
     public void pmd() throws Exception {
         new PmdOperation()
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Writes files atomically, so that concurrent readers never observe a partially written file.
+ * <p>
+ * The content is staged in a temporary file in the same directory, which is then moved over the target. Writes to
+ * the same target can also be serialized across processes, using an advisory lock.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+final class AtomicFiles {
+    private static final Object[] MONITORS = new Object[64];
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    static {
+        Arrays.setAll(MONITORS, i -> new Object());
+    }
+
+    private AtomicFiles() {
+        // no-op
+    }
+
+    /**
+     * Runs the given action while holding an advisory lock on the given target.
+     * <p>
+     * The lock file is created in the given lock directory, such as the project's build directory, so that the
+     * target's directory is left untouched, and every process building the project uses the same lock file. Threads
+     * of the same JVM are serialized as well, since file locks are held on behalf of the whole JVM.
+     *
+     * @param lockDirectory the directory of the lock file
+     * @param target        the target file
+     * @param action        the action
+     * @param <T>           the type of the action's result
+     * @return the action's result
+     * @throws IOException if an I/O error occurs
+     */
+    static <T> T locked(Path lockDirectory, Path target, IOAction<T> action) throws IOException {
+        var path = target.toAbsolutePath().normalize();
+        var digest = sha256().digest(path.toString().getBytes(StandardCharsets.UTF_8));
+        Files.createDirectories(lockDirectory);
+        var lockFile = lockDirectory.resolve(
+                path.getFileName().toString() + '.' + HexFormat.of().formatHex(digest, 0, 16) + ".lock");
+        // striped, so that the monitors are bounded, no matter how many targets are locked
+        synchronized (MONITORS[Math.floorMod(path.hashCode(), MONITORS.length)]) {
+            try (var channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                var lock = channel.lock();
+                try {
+                    return action.run();
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stages the content written by the given writer in a temporary file, next to the target file.
+     * <p>
+     * The content is streamed through a small buffer, so that it is never held in memory as a whole, and digested
+     * along the way. The staged file must then either be {@link Staged#commit() committed}, or discarded by closing
+     * it, such as when it {@link Staged#isSameAs(File) matches} the target.
+     *
+     * @param target the target file
+     * @param writer the content writer
+     * @param sync   whether the content, and its directory entry, are flushed to the storage device on commit
+     * @return the staged file
+     * @throws IOException if an I/O error occurs
+     */
+    static Staged stage(Path target, ContentWriter writer, boolean sync) throws IOException {
+        var temp = temp(target);
+        var digest = sha256();
+        try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            var out = new BufferedOutputStream(new DigestOutputStream(Channels.newOutputStream(channel), digest),
+                    8192);
+            writer.writeTo(out);
+            out.flush();
+            if (sync) {
+                channel.force(true);
+            }
+            return new Staged(target, temp, sync, channel.size(), digest.digest());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the given content to the target file.
+     *
+     * @param target  the target file
+     * @param content the content
+     * @param sync    whether the content, and its directory entry, are flushed to the storage device
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(Path target, byte[] content, boolean sync) throws IOException {
+        try (var staged = stage(target, out -> out.write(content), sync)) {
+            staged.commit();
+        }
+    }
+
+    /**
+     * Streams the content written by the given writer to a staged file, which is committed over the target file,
+     * unless the target already holds the same content.
+     *
+     * @param target  the target file
+     * @param writer  the content writer
+     * @param sync    whether the content, and its directory entry, are flushed to the storage device
+     * @param timings the timings of the render, and of the skip or write, phases
+     * @return {@code true} if the target was written, {@code false} if it already had the same content
+     * @throws IOException if an I/O error occurs
+     */
+    static boolean writeIfChanged(Path target, ContentWriter writer, boolean sync, PhaseTimings timings)
+            throws IOException {
+        var start = System.nanoTime();
+        try (var staged = stage(target, writer, sync)) {
+            timings.record(PhaseTimings.RENDER, start);
+
+            start = System.nanoTime();
+            if (staged.isSameAs(target.toFile())) {
+                timings.record(PhaseTimings.SKIP, start);
+                return false;
+            }
+            staged.commit();
+            timings.record(PhaseTimings.WRITE, start);
+            return true;
+        }
+    }
+
+    /**
+     * Writes the given content to the target file, unless the target already holds the same content.
+     *
+     * @param target  the target file
+     * @param content the content
+     * @param sync    whether the content, and its directory entry, are flushed to the storage device
+     * @param timings the timings of the skip or write phase
+     * @return {@code true} if the target was written, {@code false} if it already had the same content
+     * @throws IOException if an I/O error occurs
+     */
+    static boolean writeIfChanged(Path target, byte[] content, boolean sync, PhaseTimings timings)
+            throws IOException {
+        var start = System.nanoTime();
+        if (isUnchanged(content, target.toFile())) {
+            timings.record(PhaseTimings.SKIP, start);
+            return false;
+        }
+        write(target, content, sync);
+        timings.record(PhaseTimings.WRITE, start);
+        return true;
+    }
+
+    /**
+     * Determines whether the given file already has the given content.
+     *
+     * @param content the content
+     * @param file    the file
+     * @return {@code true} if the content is identical, {@code false} otherwise
+     * @throws IOException if an I/O error occurs
+     */
+    static boolean isUnchanged(byte[] content, File file) throws IOException {
+        if (!file.isFile() || file.length() != content.length) {
+            return false;
+        }
+        return isUnchanged(content.length, sha256().digest(content), file);
+    }
+
+    /**
+     * Determines whether the given file already holds the given content, by comparing their size and digest.
+     *
+     * @param size     the size of the content
+     * @param expected the digest of the content
+     * @param file     the file
+     * @return {@code true} if the content is identical, {@code false} otherwise
+     * @throws IOException if an I/O error occurs
+     */
+    static boolean isUnchanged(long size, byte[] expected, File file) throws IOException {
+        if (!file.isFile() || file.length() != size) {
+            return false;
+        }
+        try (var in = Files.newInputStream(file.toPath())) {
+            return Arrays.equals(expected, digest(sha256(), in));
+        }
+    }
+
+    /**
+     * Returns a new SHA-256 message digest, used to compare contents.
+     *
+     * @return the message digest
+     */
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    /**
+     * Replaces the target file with a hard link to the given existing file.
+     * <p>
+     * The link is created next to the target, and then moved over it, so that the target is never missing.
+     *
+     * @param existing the existing file
+     * @param target   the target file
+     * @throws IOException                   if an I/O error occurs, such as when both files are not on the same
+     *                                       file system
+     * @throws UnsupportedOperationException if hard links are not supported
+     */
+    static void link(Path existing, Path target) throws IOException {
+        var temp = temp(target);
+        try {
+            Files.createLink(temp, existing);
+            move(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static byte[] digest(MessageDigest digest, InputStream in) throws IOException {
+        var buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return digest.digest();
+    }
+
+    private static Path temp(Path target) {
+        var bytes = new byte[8];
+        RANDOM.nextBytes(bytes);
+        // not Files.createTempFile, whose restrictive permissions would be moved over the target's
+        return target.toAbsolutePath().getParent()
+                .resolve('.' + target.getFileName().toString() + '.' + HexFormat.of().formatHex(bytes) + ".tmp");
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void syncDirectory(Path dir) {
+        try (var channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // directories cannot be opened on some platforms, such as Windows
+        }
+    }
+
+    /**
+     * Writes content to a stream.
+     */
+    @FunctionalInterface
+    interface ContentWriter {
+        /**
+         * Writes the content.
+         *
+         * @param out the output stream, which must not be closed
+         * @throws IOException if an I/O error occurs
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * A file staged next to its target.
+     */
+    static final class Staged implements Closeable {
+        private final byte[] digest_;
+        private final long size_;
+        private final boolean sync_;
+        private final Path target_;
+        private final Path temp_;
+
+        private Staged(Path target, Path temp, boolean sync, long size, byte[] digest) {
+            target_ = target;
+            temp_ = temp;
+            sync_ = sync;
+            size_ = size;
+            digest_ = digest;
+        }
+
+        /**
+         * Discards the staged file, unless committed.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        @Override
+        public void close() throws IOException {
+            Files.deleteIfExists(temp_);
+        }
+
+        /**
+         * Determines whether the given file already holds the staged content.
+         *
+         * @param file the file
+         * @return {@code true} if the content is identical, {@code false} otherwise
+         * @throws IOException if an I/O error occurs
+         */
+        boolean isSameAs(File file) throws IOException {
+            return isUnchanged(size_, digest_, file);
+        }
+
+        /**
+         * Atomically moves the staged file over its target.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        void commit() throws IOException {
+            move(temp_, target_);
+            if (sync_) {
+                syncDirectory(target_.toAbsolutePath().getParent());
+            }
+        }
+    }
+
+    /**
+     * An action performed while holding a lock.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    interface IOAction<T> {
+        /**
+         * Runs the action.
+         *
+         * @return the result
+         * @throws IOException if an I/O error occurs
+         */
+        T run() throws IOException;
+    }
+}
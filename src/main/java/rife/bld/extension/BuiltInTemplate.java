@@ -0,0 +1,53 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+/**
+ * The built-in templates used to render the version class when no custom template is specified.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+public enum BuiltInTemplate {
+    /**
+     * Declares the build date as a {@code java.util.Date} constant. This is the default.
+     */
+    DEFAULT(TemplateCache.DEFAULT_TEMPLATE),
+    /**
+     * Declares the build time as a {@code long EPOCH} constant, and only provides the build date through the
+     * {@code buildDate()} and {@code buildInstant()} methods.
+     * <p>
+     * All the fields are compile-time constants, which are inlined by {@code javac}, so reading them neither loads
+     * {@code java.util.Date} nor initializes the class.
+     */
+    FAST_STARTUP(TemplateCache.FAST_STARTUP_TEMPLATE);
+
+    private final String templateName_;
+
+    BuiltInTemplate(String templateName) {
+        templateName_ = templateName;
+    }
+
+    /**
+     * Returns the name of the template, in the {@code templates} classpath directory.
+     *
+     * @return the template name
+     */
+    String templateName() {
+        return templateName_;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Provides the project dependencies, encoded as a table of distinct strings and a string of indexes into that table.
+ * <p>
+ * Each dependency is encoded as four indexes: its group, artifact, version and scope. Both are rendered as Java string
+ * literals, split in chunks that fit in the constant pool, so that the generated class only holds a few constants no
+ * matter how many dependencies there are.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+final class DependencyValueProvider implements ValueProvider {
+    static final String DEPENDENCY_INDEX = "dependencyIndex";
+    static final String DEPENDENCY_STRINGS = "dependencyStrings";
+    // at most 3 bytes per character in the constant pool, which is limited to 65535 bytes per string
+    private static final int CHUNK_SIZE = 16_384;
+    private static final Set<String> VALUE_IDS = Set.of(DEPENDENCY_INDEX, DEPENDENCY_STRINGS);
+
+    /**
+     * Escapes the given text to be used in a Java string literal. Line terminators, quotes and backslashes are
+     * escaped, as are all non-printable or non-ASCII characters.
+     *
+     * @param text the text
+     * @return the escaped text
+     */
+    static String escapeJava(CharSequence text) {
+        var escaped = new StringBuilder(text.length());
+        for (var i = 0; i < text.length(); i++) {
+            var c = text.charAt(i);
+            switch (c) {
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '"' -> escaped.append("\\\"");
+                case '\\' -> escaped.append("\\\\");
+                default -> {
+                    if (c < 0x20 || c > 0x7e) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+
+    // renders the text as comma-separated string literals
+    private static String literals(CharSequence text) {
+        var literals = new StringBuilder();
+        var i = 0;
+        do {
+            var end = Math.min(i + CHUNK_SIZE, text.length());
+            if (literals.length() > 0) {
+                literals.append(", ");
+            }
+            literals.append('"').append(escapeJava(text.subSequence(i, end))).append('"');
+            i = end;
+        } while (i < text.length());
+        return literals.toString();
+    }
+
+    @Override
+    public Set<String> valueIds() {
+        return VALUE_IDS;
+    }
+
+    @Override
+    public Map<String, ?> values(GeneratedVersion generatedVersion, Set<String> valueIds) {
+        var strings = new LinkedHashMap<String, Character>();
+        var index = new StringBuilder();
+        var dependencies = generatedVersion.getProject().dependencies();
+        for (var scope : generatedVersion.getDependencyScopes()) {
+            var set = dependencies.get(scope);
+            if (set != null) {
+                for (var dependency : set) {
+                    for (var value : new String[]{dependency.groupId(), dependency.artifactId(),
+                            String.valueOf(dependency.version()), scope.name()}) {
+                        var id = strings.get(value);
+                        if (id == null) {
+                            if (strings.size() > Character.MAX_VALUE) {
+                                throw new IllegalStateException("Too many distinct dependency strings.");
+                            }
+                            id = (char) strings.size();
+                            strings.put(value, id);
+                        }
+                        index.append(id.charValue());
+                    }
+                }
+            }
+        }
+
+        var values = new HashMap<String, Object>();
+        values.put(DEPENDENCY_STRINGS, literals(String.join("\n", strings.keySet())));
+        values.put(DEPENDENCY_INDEX, literals(index));
+        return values;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+
+/**
+ * Provides the build time used for the {@code epoch} template value.
+ * <p>
+ * Using a stable strategy, such as {@link #sourceDateEpoch()} or {@link #lastCommit()}, allows identical inputs to
+ * produce byte-identical output.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+@FunctionalInterface
+public interface EpochStrategy {
+    /**
+     * The name of the environment variable defined by the
+     * <a href="https://reproducible-builds.org/specs/source-date-epoch/">reproducible builds</a> specification.
+     */
+    String SOURCE_DATE_EPOCH = "SOURCE_DATE_EPOCH";
+
+    /**
+     * Uses the current time. This is the default.
+     *
+     * @return the strategy
+     */
+    static EpochStrategy currentTime() {
+        return generatedVersion -> System.currentTimeMillis();
+    }
+
+    /**
+     * Uses a fixed time.
+     *
+     * @param epoch the time, in milliseconds since the epoch
+     * @return the strategy
+     */
+    static EpochStrategy fixed(long epoch) {
+        return generatedVersion -> epoch;
+    }
+
+    /**
+     * Uses the time of the last commit, read directly from the project's {@code .git} directory.
+     * <p>
+     * Falls back to the current time if the project is not in a Git repository, or has no commit.
+     *
+     * @return the strategy
+     */
+    static EpochStrategy lastCommit() {
+        return generatedVersion -> {
+            try {
+                var repository = GitRepository.find(generatedVersion.getProject().workDirectory());
+                if (repository != null) {
+                    var time = repository.commitTime();
+                    if (time >= 0) {
+                        return time;
+                    }
+                }
+                return System.currentTimeMillis();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read the last commit time: " + e.getMessage(), e);
+            }
+        };
+    }
+
+    /**
+     * Uses the value of the {@value #SOURCE_DATE_EPOCH} environment variable, in seconds since the epoch.
+     * <p>
+     * Falls back to the current time if the variable is not set.
+     *
+     * @return the strategy
+     */
+    static EpochStrategy sourceDateEpoch() {
+        return generatedVersion -> {
+            var value = System.getenv(SOURCE_DATE_EPOCH);
+            if (value == null || value.isBlank()) {
+                return System.currentTimeMillis();
+            }
+            try {
+                return Long.parseLong(value.trim()) * 1000L;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid " + SOURCE_DATE_EPOCH + " value: " + value, e);
+            }
+        };
+    }
+
+    /**
+     * Uses the most recent last modified time of the files in the project's main source directory, excluding the
+     * generated files themselves.
+     * <p>
+     * Falls back to the current time if no source files are found.
+     *
+     * @return the strategy
+     */
+    static EpochStrategy sourceTree() {
+        return generatedVersion -> {
+            var root = generatedVersion.getProject().srcMainDirectory().toPath();
+            if (!Files.isDirectory(root)) {
+                return System.currentTimeMillis();
+            }
+            var excluded = new HashSet<Path>();
+            if (generatedVersion.getDirectory() != null) {
+                for (var file : generatedVersion.resolveOutputFiles()) {
+                    excluded.add(file.getAbsoluteFile().toPath());
+                }
+            }
+            var max = new long[]{-1L};
+            try {
+                Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (attrs.isRegularFile() && !excluded.contains(file.toAbsolutePath())) {
+                            max[0] = Math.max(max[0], attrs.lastModifiedTime().toMillis());
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to scan the source tree: " + e.getMessage(), e);
+            }
+            return max[0] >= 0 ? max[0] : System.currentTimeMillis();
+        };
+    }
+
+    /**
+     * Returns the build time.
+     *
+     * @param generatedVersion the generated version
+     * @return the time, in milliseconds since the epoch
+     */
+    long epoch(GeneratedVersion generatedVersion);
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Computes and persists the fingerprint of the inputs of a {@link GeneratedVersion}.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+final class Fingerprint {
+    /**
+     * The name of the directory, in the project's build directory, where the fingerprints are saved.
+     */
+    static final String DIRECTORY = "generated-version";
+    // bump whenever the output for the same inputs changes, such as when a built-in template is modified
+    private static final String FORMAT = "2";
+
+    private Fingerprint() {
+        // no-op
+    }
+
+    /**
+     * Computes the fingerprint of the inputs of the given generated version.
+     *
+     * @param generatedVersion the generated version
+     * @return the fingerprint
+     * @throws IOException if the template could not be read
+     */
+    static String compute(GeneratedVersion generatedVersion) throws IOException {
+        return compute(generatedVersion, true);
+    }
+
+    /**
+     * Computes the key of the outputs of the given generated version in the output cache.
+     * <p>
+     * Unlike the fingerprint, the key does not depend on the location of the output files, so that the same outputs
+     * are shared across workspaces.
+     *
+     * @param generatedVersion the generated version
+     * @return the cache key
+     * @throws IOException if the template could not be read
+     * @see OutputCache
+     */
+    static String cacheKey(GeneratedVersion generatedVersion) throws IOException {
+        return compute(generatedVersion, false);
+    }
+
+    private static String compute(GeneratedVersion generatedVersion, boolean locations) throws IOException {
+        var digest = AtomicFiles.sha256();
+        var mode = generatedVersion.getOutputMode();
+        var version = generatedVersion.getProject().version();
+
+        update(digest, FORMAT);
+        update(digest, mode.name());
+        if (locations) {
+            for (var file : generatedVersion.resolveOutputFiles()) {
+                update(digest, file.getAbsolutePath());
+            }
+        } else {
+            // the cached files are restored in order, so their names must match as well
+            generatedVersion.applyDefaults();
+            update(digest, "cache");
+            for (var output : generatedVersion.getOutputs()) {
+                update(digest, output.packageName());
+                update(digest, output.className());
+                update(digest, output.extension());
+            }
+        }
+        update(digest, generatedVersion.getPackageName());
+        update(digest, generatedVersion.getClassName());
+        update(digest, generatedVersion.getProjectName());
+        update(digest, version.toString());
+        update(digest, String.valueOf(generatedVersion.epoch()));
+        update(digest, generatedVersion.getExtension());
+
+        if (mode == OutputMode.SOURCE) {
+            updateTemplate(digest, generatedVersion, TemplateCache.resolve(generatedVersion));
+        } else if (mode == OutputMode.PROPERTIES) {
+            digest.update(builtInTemplate(TemplateCache.PROPERTIES_TEMPLATE));
+        }
+        // the output files, already hashed, also account for the outputs' package and class names
+        for (var output : generatedVersion.getOutputs()) {
+            updateTemplate(digest, generatedVersion,
+                    output.classTemplate() != null ? output.classTemplate() : TemplateCache.resolve(generatedVersion));
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void updateTemplate(MessageDigest digest, GeneratedVersion generatedVersion, File template)
+            throws IOException {
+        if (template != null) {
+            digest.update(Files.readAllBytes(template.toPath()));
+        } else {
+            digest.update(builtInTemplate(TemplateCache.builtInName(generatedVersion)));
+            digest.update(builtInTemplate(TemplateCache.BLOCKS_TEMPLATE));
+        }
+        for (var value : generatedVersion.resolveValues(TemplateCache.load(generatedVersion, template)).entrySet()) {
+            update(digest, value.getKey());
+            update(digest, String.valueOf(value.getValue()));
+        }
+    }
+
+    /**
+     * Returns the location of the fingerprint file of the given generated version.
+     *
+     * @param generatedVersion the generated version
+     * @return the fingerprint file
+     */
+    static File file(GeneratedVersion generatedVersion) {
+        generatedVersion.applyDefaults();
+        var packageName = generatedVersion.getPackageName();
+        var name = packageName.isEmpty() ? generatedVersion.getClassName()
+                : packageName + '.' + generatedVersion.getClassName();
+        return new File(new File(generatedVersion.getProject().buildDirectory(), DIRECTORY),
+                name + '.' + generatedVersion.getOutputMode().name().toLowerCase(Locale.ROOT) + ".fingerprint");
+    }
+
+    /**
+     * Determines whether the output files of the given generated version exist, and the saved fingerprint matches.
+     *
+     * @param generatedVersion the generated version
+     * @param fingerprint      the current fingerprint
+     * @return {@code true} if up-to-date, {@code false} otherwise
+     * @throws IOException if an I/O error occurs
+     */
+    static boolean matches(GeneratedVersion generatedVersion, String fingerprint) throws IOException {
+        if (!exists(generatedVersion)) {
+            return false;
+        }
+        var file = file(generatedVersion);
+        return file.isFile() && fingerprint.equals(Files.readString(file.toPath(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Determines whether all the output files of the given generated version exist.
+     *
+     * @param generatedVersion the generated version
+     * @return {@code true} if they all exist, {@code false} otherwise
+     */
+    static boolean exists(GeneratedVersion generatedVersion) {
+        for (var output : generatedVersion.resolveOutputFiles()) {
+            if (!output.isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Saves the fingerprint of the given generated version.
+     *
+     * @param generatedVersion the generated version
+     * @param fingerprint      the fingerprint
+     * @throws IOException if an I/O error occurs
+     */
+    static void save(GeneratedVersion generatedVersion, String fingerprint) throws IOException {
+        var file = file(generatedVersion);
+        Files.createDirectories(file.getParentFile().toPath());
+        AtomicFiles.write(file.toPath(), fingerprint.getBytes(StandardCharsets.UTF_8), false);
+    }
+
+    private static byte[] builtInTemplate(String name) throws IOException {
+        try (var in = Fingerprint.class.getResourceAsStream("/templates/" + name + ".txt")) {
+            if (in != null) {
+                return in.readAllBytes();
+            }
+        }
+        // the template source is not packaged when precompiled, use the location of the extension's jar instead,
+        // which includes its version
+        var source = Fingerprint.class.getProtectionDomain().getCodeSource();
+        return (name + '@' + (source != null ? source.getLocation() : "")).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
@@ -18,16 +18,25 @@ package rife.bld.extension;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import rife.bld.BaseProject;
-import rife.resources.ResourceFinderClasspath;
-import rife.resources.ResourceFinderDirectories;
-import rife.resources.ResourceFinderGroup;
+import rife.bld.dependencies.Scope;
 import rife.template.Template;
-import rife.template.TemplateFactory;
-import rife.tools.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * GeneratedVersion data class.
@@ -37,6 +46,7 @@ import java.nio.file.Path;
  */
 public class GeneratedVersion {
     private static final String CLASSNAME = "className";
+    private static final String DEPENDENCIES = "dependencies";
     private static final String EPOCH = "epoch";
     private static final String MAJOR = "major";
     private static final String MINOR = "minor";
@@ -45,81 +55,132 @@ public class GeneratedVersion {
     private static final String QUALIFIER = "qualifier";
     private static final String REVISION = "revision";
     private static final String VERSION = "version";
+    private static final String VERSION_CODE = "versionCode";
+    private static final String VERSION_CODE_CONSTANT = "versionCodeConstant";
+    private static final String VERSION_CODE_METHODS = "versionCodeMethods";
+    private BuiltInTemplate builtInTemplate_ = BuiltInTemplate.DEFAULT;
+    private boolean cacheTemplate_ = true;
     private File classFile_;
     private String className_ = "GeneratedVersion";
+    private File classesDirectory_;
+    private final List<Scope> dependencyScopes_ = new ArrayList<>();
     private File directory_;
+    private EpochStrategy epochStrategy_ = EpochStrategy.currentTime();
     private String extension_ = ".java";
+    private String fingerprint_;
+    private volatile boolean inMemory_;
+    private boolean lock_;
+    private boolean outputCacheLink_;
+    private long outputCacheMaxSize_ = OutputCache.DEFAULT_MAX_SIZE;
+    private File outputCache_;
+    private OutputMode outputMode_ = OutputMode.SOURCE;
+    private final List<VersionOutput> outputs_ = new ArrayList<>();
     private String packageName_;
     private String projectName_;
     private BaseProject project_;
+    private File propertiesFile_;
+    private File resourcesDirectory_;
+    private boolean sync_;
+    private final List<File> templateDirectories_ = new ArrayList<>();
+    private String templateName_;
     private File template_;
+    private final PhaseTimings timings_ = new PhaseTimings();
+    private boolean upToDateCheck_;
+    private final List<ValueProvider> valueProviders_ = new ArrayList<>(
+            List.of(new GitValueProvider(), new DependencyValueProvider(), new SourceDigestValueProvider()));
+    private final Map<String, Object> values_ = new HashMap<>();
+
+    /**
+     * Adds outputs, rendered from the same values as the version class.
+     *
+     * @param outputs one or more outputs
+     */
+    public void addOutputs(VersionOutput... outputs) {
+        outputs_.addAll(Arrays.asList(outputs));
+    }
+
+    /**
+     * Adds directories to the template search path, searched in order for the named template.
+     *
+     * @param directories one or more directories
+     * @see #setTemplateName(String)
+     */
+    public void addTemplateDirectories(File... directories) {
+        templateDirectories_.addAll(Arrays.asList(directories));
+    }
+
+    /**
+     * Adds value providers, whose values are set after the built-in values.
+     *
+     * @param valueProviders one or more value providers
+     */
+    public void addValueProviders(ValueProvider... valueProviders) {
+        valueProviders_.addAll(Arrays.asList(valueProviders));
+    }
 
     /**
      * Builds the template based on the {@link GeneratedVersion} data.
      *
      * @return the template
      */
-    @SuppressFBWarnings("PATH_TRAVERSAL_IN")
     public Template buildTemplate() {
-        Template template;
-        var version = project_.version();
-        TemplateFactory.TXT.resetClassLoader();
-        if (template_ == null) {
-            var group = new ResourceFinderGroup().add(ResourceFinderClasspath.instance());
-            template = TemplateFactory.TXT.setResourceFinder(group).get("default_generated_version");
-        } else {
-            var parent = template_.getParentFile();
-            if (parent == null) {
-                parent = new File(template_.getAbsolutePath()).getParentFile();
-            }
-            var group = new ResourceFinderGroup().add(new ResourceFinderDirectories(parent));
-            template = TemplateFactory.TXT.setResourceFinder(group).get(template_.getName());
-        }
-
         if (packageName_ == null) {
             packageName_ = project_.pkg();
         }
+        return buildTemplate(TemplateCache.resolve(this), packageName_, className_);
+    }
 
-        if (template.hasValueId(PACKAGE_NAME)) {
-            template.setValue(PACKAGE_NAME, packageName_);
-        }
-
-        if (template.hasValueId(CLASSNAME)) {
-            template.setValue(CLASSNAME, className_);
-        }
-
-        if (template.hasValueId(PROJECT)) {
-            if (projectName_ == null) {
-                projectName_ = project_.name();
-            }
-            template.setValue(PROJECT, projectName_);
-        }
-
-        if (template.hasValueId(EPOCH)) {
-            template.setValue(EPOCH, System.currentTimeMillis());
-        }
-
-        if (template.hasValueId(VERSION)) {
-            template.setValue(VERSION, version.toString());
-        }
-
-        if (template.hasValueId(MAJOR)) {
-            template.setValue(MAJOR, version.majorInt());
+    /**
+     * Builds the template of the given output, based on the {@link GeneratedVersion} data.
+     *
+     * @param output the output
+     * @return the template
+     */
+    public Template buildTemplate(VersionOutput output) {
+        if (packageName_ == null) {
+            packageName_ = project_.pkg();
         }
+        return buildTemplate(output.classTemplate() != null ? output.classTemplate() : TemplateCache.resolve(this),
+                output.packageName() != null ? output.packageName() : packageName_,
+                output.className() != null ? output.className() : className_);
+    }
 
-        if (template.hasValueId(MINOR)) {
-            template.setValue(MINOR, version.minorInt());
-        }
+    /**
+     * Returns the built-in template used when no template is specified.
+     *
+     * @return the built-in template
+     */
+    public BuiltInTemplate getBuiltInTemplate() {
+        return builtInTemplate_;
+    }
 
-        if (template.hasValueId(REVISION)) {
-            template.setValue(REVISION, version.revisionInt());
-        }
+    /**
+     * Sets the built-in template used when no template is specified. (Default is: {@link BuiltInTemplate#DEFAULT})
+     *
+     * @param builtInTemplate the built-in template
+     */
+    public void setBuiltInTemplate(BuiltInTemplate builtInTemplate) {
+        this.builtInTemplate_ = builtInTemplate;
+    }
 
-        if (template.hasValueId(QUALIFIER)) {
-            template.setValue(QUALIFIER, version.qualifier());
-        }
+    /**
+     * Returns whether compiled templates are cached.
+     *
+     * @return {@code true} if templates are cached, {@code false} otherwise
+     */
+    public boolean isCacheTemplate() {
+        return cacheTemplate_;
+    }
 
-        return template;
+    /**
+     * Sets whether compiled templates are cached for the lifetime of the JVM. (Default is: {@code true})
+     * <p>
+     * When enabled, a template is only recompiled when its file has changed.
+     *
+     * @param cacheTemplate {@code true} to cache templates, {@code false} to always recompile them
+     */
+    public void setCacheTemplate(boolean cacheTemplate) {
+        this.cacheTemplate_ = cacheTemplate;
     }
 
     /**
@@ -149,6 +210,53 @@ public class GeneratedVersion {
         this.className_ = className;
     }
 
+    /**
+     * Returns the classes directory, used when generating bytecode.
+     *
+     * @return the classes directory
+     */
+    public File getClassesDirectory() {
+        return classesDirectory_;
+    }
+
+    /**
+     * Sets the classes directory, used when generating bytecode. (Default is: the project's build main directory)
+     *
+     * @param classesDirectory the classes directory
+     */
+    public void setClassesDirectory(File classesDirectory) {
+        this.classesDirectory_ = classesDirectory;
+    }
+
+    /**
+     * Clears the memoized values, including the epoch and the values of the value providers, so that they are
+     * computed again.
+     */
+    public synchronized void clearValues() {
+        values_.clear();
+    }
+
+    /**
+     * Returns the scopes of the dependencies listed in the generated class.
+     *
+     * @return the dependency scopes, empty if disabled
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public List<Scope> getDependencyScopes() {
+        return dependencyScopes_;
+    }
+
+    /**
+     * Sets the scopes of the dependencies listed in the generated class, using a compact table decoded on first
+     * access. (Default is: none)
+     *
+     * @param scopes the dependency scopes, none to disable
+     */
+    public void setDependencyScopes(Scope... scopes) {
+        dependencyScopes_.clear();
+        dependencyScopes_.addAll(Arrays.asList(scopes));
+    }
+
     /**
      * Returns the destination directory.
      *
@@ -167,6 +275,25 @@ public class GeneratedVersion {
         this.directory_ = directory;
     }
 
+    /**
+     * Returns the strategy used to compute the {@code epoch} template value.
+     *
+     * @return the epoch strategy
+     */
+    public EpochStrategy getEpochStrategy() {
+        return epochStrategy_;
+    }
+
+    /**
+     * Sets the strategy used to compute the {@code epoch} template value. (Default is:
+     * {@link EpochStrategy#currentTime()})
+     *
+     * @param epochStrategy the epoch strategy
+     */
+    public void setEpochStrategy(EpochStrategy epochStrategy) {
+        this.epochStrategy_ = epochStrategy;
+    }
+
     /**
      * Returns the file extension.
      *
@@ -185,6 +312,128 @@ public class GeneratedVersion {
         this.extension_ = extension;
     }
 
+    /**
+     * Generates the project version class, according to the output mode.
+     *
+     * @return {@code true} if any file was written, {@code false} if all were already up-to-date
+     * @throws IOException if an I/O error occurs
+     * @see #setOutputMode(OutputMode)
+     */
+    public boolean generate() throws IOException {
+        return generate(null);
+    }
+
+    /**
+     * Returns whether writes are serialized across processes using an advisory file lock.
+     *
+     * @return {@code true} if locking, {@code false} otherwise
+     */
+    public boolean isLock() {
+        return lock_;
+    }
+
+    /**
+     * Sets whether writes are serialized across processes using an advisory file lock, for when several builds may
+     * generate the same file concurrently. (Default is: {@code false})
+     * <p>
+     * The lock files are created in the project's {@code build/generated-version} directory.
+     *
+     * @param lock {@code true} to lock, {@code false} otherwise
+     */
+    public void setLock(boolean lock) {
+        lock_ = lock;
+    }
+
+    /**
+     * Returns the output cache directory.
+     *
+     * @return the output cache directory, or {@code null} if not caching
+     */
+    public File getOutputCache() {
+        return outputCache_;
+    }
+
+    /**
+     * Sets the directory of a local cache of the output files, shared by all the workspaces of the same machine.
+     * <p>
+     * The output files are restored from the cache, instead of being rendered, when all their inputs are identical,
+     * which requires a stable {@link #setEpochStrategy(EpochStrategy) epoch strategy}.
+     *
+     * @param outputCache the output cache directory, or {@code null} to disable caching
+     * @see #setOutputCacheMaxSize(long)
+     */
+    public void setOutputCache(File outputCache) {
+        outputCache_ = outputCache;
+    }
+
+    /**
+     * Returns whether the output files are restored from the output cache as hard links.
+     *
+     * @return {@code true} if linking, {@code false} if copying
+     */
+    public boolean isOutputCacheLink() {
+        return outputCacheLink_;
+    }
+
+    /**
+     * Sets whether the output files are restored from the output cache as hard links, instead of copies, when the
+     * cache is on the same file system. (Default is: {@code false})
+     * <p>
+     * Linked files keep the last modified time of the cached file, which may be older than the file they replace.
+     *
+     * @param outputCacheLink {@code true} to link, {@code false} to copy
+     */
+    public void setOutputCacheLink(boolean outputCacheLink) {
+        outputCacheLink_ = outputCacheLink;
+    }
+
+    /**
+     * Returns the maximum size of the output cache.
+     *
+     * @return the maximum size, in bytes
+     */
+    public long getOutputCacheMaxSize() {
+        return outputCacheMaxSize_;
+    }
+
+    /**
+     * Sets the maximum size of the output cache, above which the least recently used entries are evicted. (Default
+     * is: 64 MiB)
+     *
+     * @param outputCacheMaxSize the maximum size, in bytes
+     */
+    public void setOutputCacheMaxSize(long outputCacheMaxSize) {
+        outputCacheMaxSize_ = outputCacheMaxSize;
+    }
+
+    /**
+     * Returns the output mode.
+     *
+     * @return the output mode
+     */
+    public OutputMode getOutputMode() {
+        return outputMode_;
+    }
+
+    /**
+     * Sets the output mode. (Default is: {@link OutputMode#SOURCE})
+     *
+     * @param outputMode the output mode
+     */
+    public void setOutputMode(OutputMode outputMode) {
+        this.outputMode_ = outputMode;
+    }
+
+    /**
+     * Returns the additional outputs.
+     *
+     * @return the outputs
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public List<VersionOutput> getOutputs() {
+        return outputs_;
+    }
+
     /**
      * Returns the package name.
      *
@@ -241,6 +490,101 @@ public class GeneratedVersion {
         this.projectName_ = projectName;
     }
 
+    /**
+     * Returns the properties file, when generating a properties resource.
+     *
+     * @return the properties file
+     */
+    public File getPropertiesFile() {
+        return propertiesFile_;
+    }
+
+    /**
+     * Renders all the files, according to the output mode, and the additional outputs in memory, without writing
+     * any file.
+     * <p>
+     * Each file's path is relative to its target directory: the class directory, the classes directory or the
+     * resources directory, depending on the file.
+     *
+     * @return the rendered files
+     */
+    public List<RenderedOutput> render() {
+        inMemory_ = true;
+        try {
+            applyDefaults();
+            var rendered = new ArrayList<RenderedOutput>(outputs_.size() + 2);
+            switch (outputMode_) {
+                case CLASS -> {
+                    if (template_ != null || templateName_ != null) {
+                        throw new IllegalStateException("Custom templates are not supported when generating bytecode.");
+                    }
+                    rendered.add(new RenderedOutput(relativePath(packageName_, className_, ".class"),
+                            renderBytecode()));
+                }
+                case PROPERTIES -> {
+                    if (template_ != null || templateName_ != null) {
+                        throw new IllegalStateException(
+                                "Custom templates are not supported when generating a properties resource.");
+                    }
+                    rendered.add(RenderedOutput.text(relativePath(packageName_, className_, extension_),
+                            buildAccessor().getContent()));
+                    rendered.add(RenderedOutput.text(relativePath(packageName_, className_, ".properties"),
+                            renderProperties()));
+                }
+                default -> rendered.add(RenderedOutput.text(relativePath(packageName_, className_, extension_),
+                        render(buildTemplate())));
+            }
+            for (var output : outputs_) {
+                rendered.add(RenderedOutput.text(relativePath(
+                                output.packageName() != null ? output.packageName() : packageName_,
+                                output.className() != null ? output.className() : className_,
+                                output.extension() != null ? output.extension() : extension_),
+                        render(buildTemplate(output))));
+            }
+            return rendered;
+        } finally {
+            inMemory_ = false;
+        }
+    }
+
+    /**
+     * Returns the resources directory, used when generating a properties resource.
+     *
+     * @return the resources directory
+     */
+    public File getResourcesDirectory() {
+        return resourcesDirectory_;
+    }
+
+    /**
+     * Sets the resources directory, used when generating a properties resource. (Default is: the project's main
+     * resources directory)
+     *
+     * @param resourcesDirectory the resources directory
+     */
+    public void setResourcesDirectory(File resourcesDirectory) {
+        this.resourcesDirectory_ = resourcesDirectory;
+    }
+
+    /**
+     * Returns whether written files are flushed to the storage device.
+     *
+     * @return {@code true} if syncing, {@code false} otherwise
+     */
+    public boolean isSync() {
+        return sync_;
+    }
+
+    /**
+     * Sets whether written files, and their directory entries, are flushed to the storage device before returning.
+     * (Default is: {@code false})
+     *
+     * @param sync {@code true} to sync, {@code false} otherwise
+     */
+    public void setSync(boolean sync) {
+        sync_ = sync;
+    }
+
     /**
      * Returns the template.
      *
@@ -259,30 +603,678 @@ public class GeneratedVersion {
         this.template_ = template;
     }
 
+    /**
+     * Returns the template search path.
+     *
+     * @return the template directories
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public List<File> getTemplateDirectories() {
+        return templateDirectories_;
+    }
+
+    /**
+     * Returns the name of the template to find in the template search path.
+     *
+     * @return the template name, or {@code null} if none
+     */
+    public String getTemplateName() {
+        return templateName_;
+    }
+
+    /**
+     * Sets the name of the template, without its {@code .txt} extension, to find in the template directories, then in
+     * the {@code templates} directory of the classpath. The template file, if set, takes precedence.
+     * <p>
+     * The resolution of the name is memoized for the lifetime of the JVM, and only searched again when one of the
+     * searched directories is modified.
+     *
+     * @param templateName the template name
+     */
+    public void setTemplateName(String templateName) {
+        this.templateName_ = templateName;
+    }
+
+    /**
+     * Returns the time spent in each phase of the generation, since last cleared.
+     *
+     * @return the phase timings
+     */
+    public PhaseTimings getTimings() {
+        return timings_;
+    }
+
+    /**
+     * Determines whether the output files exist and were generated from the same inputs, by comparing the
+     * fingerprint of the inputs with the one saved by the last generation.
+     * <p>
+     * The fingerprint covers the template content, package, class and project names, version, build time, extension,
+     * output mode and output locations.
+     *
+     * @return {@code true} if the output is up-to-date, {@code false} otherwise
+     * @throws IOException if an I/O error occurs
+     * @see #setUpToDateCheck(boolean)
+     */
+    public boolean isUpToDate() throws IOException {
+        var fingerprint = fingerprint();
+        var start = System.nanoTime();
+        var upToDate = Fingerprint.matches(this, fingerprint);
+        timings_.record(PhaseTimings.FINGERPRINT, start);
+        return upToDate;
+    }
+
+    /**
+     * Returns whether the up-to-date check is enabled.
+     *
+     * @return {@code true} if enabled, {@code false} otherwise
+     */
+    public boolean isUpToDateCheck() {
+        return upToDateCheck_;
+    }
+
+    /**
+     * Sets whether the up-to-date check is enabled. (Default is: {@code false})
+     * <p>
+     * When enabled, a fingerprint of the inputs is saved in the project's build directory after each generation, so
+     * that the next generation can be skipped entirely if nothing has changed. Since the build time is part of the
+     * inputs, this is only effective with a stable {@link EpochStrategy}.
+     *
+     * @param upToDateCheck {@code true} to enable, {@code false} otherwise
+     * @see #isUpToDate()
+     */
+    public void setUpToDateCheck(boolean upToDateCheck) {
+        this.upToDateCheck_ = upToDateCheck;
+    }
+
+    /**
+     * Returns the value providers, including the built-in Git and dependency values providers.
+     *
+     * @return the value providers
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public List<ValueProvider> getValueProviders() {
+        return valueProviders_;
+    }
+
+    /**
+     * Writes the project version class bytecode in the classes directory, without using a template.
+     * <p>
+     * The class has the same fields as the default template. The class file is left untouched if its content is
+     * identical.
+     *
+     * @return {@code true} if the class file was written, {@code false} if it was already up-to-date
+     * @throws IOException if an I/O error occurs
+     */
+    public boolean writeClass() throws IOException {
+        if (template_ != null || templateName_ != null) {
+            throw new IllegalStateException("Custom templates are not supported when generating bytecode.");
+        }
+
+        var bytecode = renderBytecode();
+        classFile_ = resolveBytecodeFile();
+        return write(bytecode, classFile_, "Unable to write the version class bytecode: ");
+    }
+
+    /**
+     * Renders and writes the file of the given output.
+     *
+     * @param output the output
+     * @return {@code true} if the file was written, {@code false} if its content was already up-to-date
+     * @throws IOException if an I/O error occurs
+     */
+    public boolean writeOutput(VersionOutput output) throws IOException {
+        var template = buildTemplate(output);
+        var file = resolveOutputFile(output);
+        var written = write(template, file, "Unable to write the version output file: ");
+        output.generated(file, written);
+        return written;
+    }
+
+    /**
+     * Writes the project version information to a properties resource in the resources directory, and its accessor
+     * class in the given directory.
+     * <p>
+     * The accessor class only depends on the package and class names, so it is left untouched when only the version
+     * information changes.
+     *
+     * @return {@code true} if either file was written, {@code false} if both were already up-to-date
+     * @throws IOException if an I/O error occurs
+     */
+    public boolean writeProperties() throws IOException {
+        if (template_ != null || templateName_ != null) {
+            throw new IllegalStateException(
+                    "Custom templates are not supported when generating a properties resource.");
+        }
+
+        var properties = renderProperties();
+        propertiesFile_ = resolvePropertiesFile();
+        var written = write(properties.getBytes(StandardCharsets.ISO_8859_1), propertiesFile_,
+                "Unable to write the version properties file: ");
+
+        var start = System.nanoTime();
+        var content = buildAccessor().getContent().getBytes(StandardCharsets.UTF_8);
+        timings_.record(PhaseTimings.RENDER, start);
+
+        classFile_ = resolveClassFile();
+        return write(content, classFile_, "Unable to write the version class file: ") || written;
+    }
+
     /**
      * Writes the project version class in the given directory.
+     * <p>
+     * The class file is left untouched if its content is identical to the rendered template, so that its last
+     * modified time is preserved and incremental compilations are not invalidated.
+     *
+     * @param template the template
+     * @return {@code true} if the class file was written, {@code false} if it was already up-to-date
+     * @throws IOException if an I/O error occurs
+     */
+    public boolean writeTemplate(Template template) throws IOException {
+        classFile_ = resolveClassFile();
+        return write(template, classFile_, "Unable to write the version class file: ");
+    }
+
+    /**
+     * Sets the package and project names from the project, if not already specified.
+     */
+    void applyDefaults() {
+        if (packageName_ == null) {
+            packageName_ = project_.pkg();
+        }
+        if (projectName_ == null) {
+            projectName_ = project_.name();
+        }
+    }
+
+    /**
+     * Clears the memoized values, except for the build time.
+     */
+    synchronized void clearValuesExceptEpoch() {
+        values_.keySet().removeIf(id -> !EPOCH.equals(id));
+    }
+
+    /**
+     * Returns the build time, computed once using the epoch strategy until the values are
+     * {@link #clearValues() cleared}.
+     *
+     * @return the build time, in milliseconds since the epoch
+     */
+    synchronized long epoch() {
+        return (Long) values_.computeIfAbsent(EPOCH, id -> epochStrategy_.epoch(this));
+    }
+
+    /**
+     * Computes the fingerprint of the inputs, which the next generation then saves instead of computing it again.
+     *
+     * @return the fingerprint
+     * @throws IOException if an I/O error occurs
+     */
+    String fingerprint() throws IOException {
+        var start = System.nanoTime();
+        fingerprint_ = Fingerprint.compute(this);
+        timings_.record(PhaseTimings.FINGERPRINT, start);
+        return fingerprint_;
+    }
+
+    /**
+     * Generates the project version class and outputs, using the given template when already built.
+     *
+     * @param template the built template, or {@code null}
+     * @return {@code true} if any file was written, {@code false} if all were already up-to-date
+     * @throws IOException if an I/O error occurs
+     */
+    boolean generate(Template template) throws IOException {
+        String cacheKey = null;
+        OutputCache.Entry cached = null;
+        if (outputCache_ != null) {
+            var start = System.nanoTime();
+            cacheKey = Fingerprint.cacheKey(this);
+            cached = OutputCache.lookup(outputCache_.toPath(), cacheKey, resolveOutputFiles().size());
+            timings_.record(PhaseTimings.CACHE, start);
+        }
+
+        boolean written;
+        if (cached != null) {
+            written = restore(cached);
+        } else {
+            written = switch (outputMode_) {
+                case CLASS -> writeClass();
+                case PROPERTIES -> writeProperties();
+                default -> writeTemplate(template != null ? template : buildTemplate());
+            };
+
+            for (var output : outputs_) {
+                written = writeOutput(output) || written;
+            }
+
+            if (cacheKey != null) {
+                var start = System.nanoTime();
+                OutputCache.store(outputCache_.toPath(), cacheKey, resolveOutputFiles(), outputCacheMaxSize_);
+                timings_.record(PhaseTimings.CACHE, start);
+            }
+        }
+
+        if (upToDateCheck_) {
+            var start = System.nanoTime();
+            Fingerprint.save(this, fingerprint_ != null ? fingerprint_ : Fingerprint.compute(this));
+            timings_.record(PhaseTimings.FINGERPRINT, start);
+        }
+        fingerprint_ = null;
+
+        return written;
+    }
+
+    /**
+     * Returns whether the files are being {@link #render() rendered in memory}, in which case the value providers must
+     * not write any file either.
+     *
+     * @return {@code true} if rendering in memory, {@code false} otherwise
+     */
+    boolean isInMemory() {
+        return inMemory_;
+    }
+
+    /**
+     * Resolves the location of the class bytecode file, based on the classes directory, package name and class name.
+     *
+     * @return the class bytecode file
+     */
+    File resolveBytecodeFile() {
+        return resolveFile(classesDirectory_ != null ? classesDirectory_ : project_.buildMainDirectory(), ".class");
+    }
+
+    /**
+     * Resolves the location of the class file, based on the destination directory, package name, class name and
+     * extension.
+     *
+     * @return the class file
      */
     @SuppressFBWarnings("PATH_TRAVERSAL_IN")
-    public void writeTemplate(Template template) throws IOException {
+    File resolveClassFile() {
         if (packageName_ != null) {
-            classFile_ = Path.of(directory_.getAbsolutePath(), packageName_.replace(".", File.separator),
+            return Path.of(directory_.getAbsolutePath(), packageName_.replace(".", File.separator),
                     className_ + extension_).toFile();
         } else {
-            classFile_ = new File(directory_, className_ + ".java");
+            return new File(directory_, className_ + ".java");
+        }
+    }
+
+    /**
+     * Returns the file of the given output.
+     *
+     * @param output the output
+     * @return the output file
+     */
+    File resolveOutputFile(VersionOutput output) {
+        applyDefaults();
+        return resolveFile(output.directory() != null ? output.directory() : directory_,
+                output.packageName() != null ? output.packageName() : packageName_,
+                output.className() != null ? output.className() : className_,
+                output.extension() != null ? output.extension() : extension_);
+    }
+
+    /**
+     * Resolves the location of all the output files for the output mode and the additional outputs, and sets the
+     * class and properties files accordingly.
+     *
+     * @return the output files
+     */
+    List<File> resolveOutputFiles() {
+        applyDefaults();
+        var files = new ArrayList<File>();
+        switch (outputMode_) {
+            case CLASS -> {
+                classFile_ = resolveBytecodeFile();
+                files.add(classFile_);
+            }
+            case PROPERTIES -> {
+                classFile_ = resolveClassFile();
+                propertiesFile_ = resolvePropertiesFile();
+                files.add(classFile_);
+                files.add(propertiesFile_);
+            }
+            default -> {
+                classFile_ = resolveClassFile();
+                files.add(classFile_);
+            }
+        }
+        for (var output : outputs_) {
+            files.add(resolveOutputFile(output));
         }
+        return files;
+    }
+
+    /**
+     * Resolves the location of the properties file, based on the resources directory, package name and class name.
+     *
+     * @return the properties file
+     */
+    File resolvePropertiesFile() {
+        return resolveFile(resourcesDirectory_ != null ? resourcesDirectory_ : project_.srcMainResourcesDirectory(),
+                ".properties");
+    }
+
+    /**
+     * Computes the values of the providers referenced by the given template, invoking the providers concurrently, on
+     * the calling thread and the common fork-join pool.
+     * <p>
+     * Values are memoized until {@link #clearValues() cleared}. When several providers supply the same id, the first
+     * one registered is used.
+     *
+     * @param template the template
+     * @return the values, sorted by id
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    synchronized SortedMap<String, Object> resolveValues(Template template) {
+        var templateIds = new HashSet<>(Arrays.asList(template.getAvailableValueIds()));
+        var claimed = new HashSet<String>();
+        var pending = new LinkedHashMap<ValueProvider, Set<String>>();
+        var values = new TreeMap<String, Object>();
+        for (var provider : valueProviders_) {
+            for (var id : provider.valueIds()) {
+                if (templateIds.contains(id) && claimed.add(id)) {
+                    if (values_.containsKey(id)) {
+                        values.put(id, values_.get(id));
+                    } else {
+                        pending.computeIfAbsent(provider, p -> new HashSet<>()).add(id);
+                    }
+                }
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            // the first provider is invoked on the calling thread, and the others on the common pool
+            var iterator = pending.entrySet().iterator();
+            var first = iterator.next();
+            var futures = new LinkedHashMap<Set<String>, CompletableFuture<Map<String, ?>>>();
+            while (iterator.hasNext()) {
+                var entry = iterator.next();
+                futures.put(entry.getValue(),
+                        CompletableFuture.supplyAsync(() -> invoke(entry.getKey(), entry.getValue())));
+            }
+            memoize(first.getValue(), invoke(first.getKey(), first.getValue()), values);
+            try {
+                for (var future : futures.entrySet()) {
+                    memoize(future.getKey(), future.getValue().join(), values);
+                }
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw (RuntimeException) e.getCause();
+            }
+        }
+        return values;
+    }
+
+    private Template buildAccessor() {
+        var start = System.nanoTime();
+        var accessor = TemplateCache.builtIn(TemplateCache.PROPERTIES_TEMPLATE, cacheTemplate_);
+        timings_.record(PhaseTimings.TEMPLATE, start);
+        accessor.setValue(PACKAGE_NAME, packageName_);
+        accessor.setValue(CLASSNAME, className_);
+        return accessor;
+    }
+
+    private Template buildTemplate(File templateFile, String packageName, String className) {
+        var start = System.nanoTime();
+        var template = TemplateCache.load(this, templateFile);
+        timings_.record(PhaseTimings.TEMPLATE, start);
+
+        start = System.nanoTime();
+        var version = project_.version();
+
+        if (template.hasValueId(PACKAGE_NAME)) {
+            template.setValue(PACKAGE_NAME, packageName);
+        }
+
+        if (template.hasValueId(CLASSNAME)) {
+            template.setValue(CLASSNAME, className);
+        }
+
+        if (template.hasValueId(PROJECT)) {
+            if (projectName_ == null) {
+                projectName_ = project_.name();
+            }
+            template.setValue(PROJECT, projectName_);
+        }
+
+        if (template.hasValueId(EPOCH)) {
+            template.setValue(EPOCH, epoch());
+        }
+
+        if (template.hasValueId(VERSION)) {
+            template.setValue(VERSION, version.toString());
+        }
+
+        if (template.hasValueId(MAJOR)) {
+            template.setValue(MAJOR, version.majorInt());
+        }
+
+        if (template.hasValueId(MINOR)) {
+            template.setValue(MINOR, version.minorInt());
+        }
+
+        if (template.hasValueId(REVISION)) {
+            template.setValue(REVISION, version.revisionInt());
+        }
+
+        if (template.hasValueId(QUALIFIER)) {
+            template.setValue(QUALIFIER, version.qualifier());
+        }
+
+        if (template.hasValueId(VERSION_CODE)) {
+            var versionCode = VersionCode.of(version.majorInt(), version.minorInt(), version.revisionInt(),
+                    version.qualifier());
+            template.setValue(VERSION_CODE, versionCode);
+            // the constant and comparison methods are omitted if the version cannot be encoded
+            for (var id : new String[]{VERSION_CODE_CONSTANT, VERSION_CODE_METHODS}) {
+                if (template.hasValueId(id)) {
+                    if (versionCode != VersionCode.UNSUPPORTED && template.hasBlock(id)) {
+                        template.setBlock(id, id);
+                    } else {
+                        template.setValue(id, "");
+                    }
+                }
+            }
+        }
+
+        resolveValues(template).forEach((id, value) -> {
+            if (value != null) {
+                template.setValue(id, value);
+            }
+        });
+
+        if (template.hasValueId(DEPENDENCIES)) {
+            if (!dependencyScopes_.isEmpty() && template.hasBlock(DEPENDENCIES)) {
+                template.setBlock(DEPENDENCIES, DEPENDENCIES);
+            } else {
+                template.setValue(DEPENDENCIES, "");
+            }
+        }
+        timings_.record(PhaseTimings.VALUES, start);
+
+        return template;
+    }
+
+    /**
+     * Escapes a properties value, using Unicode escapes for non-ASCII characters.
+     */
+    private static String escapeProperty(String value) {
+        var escaped = new StringBuilder(value.length());
+        for (var i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\t' -> escaped.append("\\t");
+                case '\f' -> escaped.append("\\f");
+                case ' ' -> escaped.append(i == 0 ? "\\ " : " ");
+                default -> {
+                    if (c < 0x20 || c > 0x7e) {
+                        escaped.append(String.format("\\u%04X", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private Map<String, ?> invoke(ValueProvider provider, Set<String> ids) {
+        try {
+            var values = provider.values(this, ids);
+            return values != null ? values : Map.of();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private void memoize(Set<String> ids, Map<String, ?> provided, Map<String, Object> values) {
+        for (var id : ids) {
+            var value = provided.get(id);
+            values_.put(id, value);
+            values.put(id, value);
+        }
+    }
+
+    private static String relativePath(String packageName, String className, String extension) {
+        if (packageName == null || packageName.isEmpty()) {
+            return className + extension;
+        }
+        return packageName.replace('.', '/') + '/' + className + extension;
+    }
+
+    private String render(Template template) {
+        var start = System.nanoTime();
+        var content = template.getContent();
+        timings_.record(PhaseTimings.RENDER, start);
+        return content;
+    }
+
+    /**
+     * Renders the version class bytecode, with the same fields as the default template.
+     */
+    private byte[] renderBytecode() {
+        applyDefaults();
+
+        var start = System.nanoTime();
+        var version = project_.version();
+        var epoch = epoch();
+        timings_.record(PhaseTimings.VALUES, start);
+
+        start = System.nanoTime();
+        var writer = new VersionClassWriter(packageName_, className_)
+                .constant("PROJECT", projectName_)
+                .buildDate(epoch)
+                .constant("MAJOR", version.majorInt())
+                .constant("MINOR", version.minorInt())
+                .constant("REVISION", version.revisionInt())
+                .constant("QUALIFIER", version.qualifier())
+                .constant("VERSION", version.toString());
+        var versionCode = VersionCode.of(version.majorInt(), version.minorInt(), version.revisionInt(),
+                version.qualifier());
+        if (versionCode != VersionCode.UNSUPPORTED) {
+            writer.constant("VERSION_CODE", versionCode);
+        }
+        var bytecode = writer.toByteArray();
+        timings_.record(PhaseTimings.RENDER, start);
+        return bytecode;
+    }
+
+    private String renderProperties() {
+        applyDefaults();
+
+        var start = System.nanoTime();
+        var version = project_.version();
+        var epoch = epoch();
+        timings_.record(PhaseTimings.VALUES, start);
+
+        start = System.nanoTime();
+        var properties = PROJECT + '=' + escapeProperty(projectName_) + '\n' +
+                EPOCH + '=' + epoch + '\n' +
+                MAJOR + '=' + version.majorInt() + '\n' +
+                MINOR + '=' + version.minorInt() + '\n' +
+                REVISION + '=' + version.revisionInt() + '\n' +
+                QUALIFIER + '=' + escapeProperty(version.qualifier()) + '\n' +
+                VERSION + '=' + escapeProperty(version.toString()) + '\n';
+        timings_.record(PhaseTimings.RENDER, start);
+        return properties;
+    }
+
+    @SuppressFBWarnings("PATH_TRAVERSAL_IN")
+    private File resolveFile(File directory, String extension) {
+        return resolveFile(directory, packageName_, className_, extension);
+    }
+
+    private static File resolveFile(File directory, String packageName, String className, String extension) {
+        if (packageName == null || packageName.isEmpty()) {
+            return new File(directory, className + extension);
+        }
+        return Path.of(directory.getAbsolutePath(), packageName.replace(".", File.separator),
+                className + extension).toFile();
+    }
+
+    /**
+     * Restores the output files from the given cached entry.
+     */
+    private boolean restore(OutputCache.Entry cached) throws IOException {
+        var files = resolveOutputFiles();
+        var first = files.size() - outputs_.size();
+        var written = false;
+        for (var i = 0; i < files.size(); i++) {
+            var index = i;
+            var file = files.get(i);
+            var restored = write(file, "Unable to restore the cached version file: ", () -> {
+                var start = System.nanoTime();
+                var result = OutputCache.restore(cached.file(index), cached.content(index), file, outputCacheLink_,
+                        sync_);
+                timings_.record(PhaseTimings.CACHE, start);
+                return result;
+            });
+            if (i >= first) {
+                outputs_.get(i - first).generated(file, restored);
+            }
+            written = restored || written;
+        }
+        return written;
+    }
+
+    /**
+     * Writes the content to the given file, creating its parent directories as needed, unless the file already
+     * holds the same content.
+     */
+    private boolean write(byte[] content, File file, String errorMessage) throws IOException {
+        return write(file, errorMessage, () -> AtomicFiles.writeIfChanged(file.toPath(), content, sync_, timings_));
+    }
+
+    // renders the template once, streaming it to a staged file, which is discarded if the target already holds it
+    private boolean write(Template template, File file, String errorMessage) throws IOException {
+        return write(file, errorMessage, () -> AtomicFiles.writeIfChanged(file.toPath(),
+                out -> template.writeContent(out, StandardCharsets.UTF_8.name()), sync_, timings_));
+    }
 
-        var parentFile = classFile_.getParentFile();
+    private boolean write(File file, String errorMessage, AtomicFiles.IOAction<Boolean> writer) throws IOException {
+        var start = System.nanoTime();
+        var parentFile = file.getParentFile();
         if (!parentFile.exists()) {
             var dirs = parentFile.mkdirs();
             if (!dirs && !parentFile.exists()) {
                 throw new IOException("Could not create project package directories: " + parentFile.getAbsolutePath());
             }
         }
+        timings_.record(PhaseTimings.DIRECTORIES, start);
 
         try {
-            FileUtils.writeString(template.getContent(), classFile_);
+            return lock_ ? AtomicFiles.locked(new File(project_.buildDirectory(), Fingerprint.DIRECTORY).toPath(),
+                    file.toPath(), writer) : writer.run();
         } catch (IOException e) {
-            throw new IOException("Unable to write the version class file: " + e.getMessage(), e);
+            throw new IOException(errorMessage + e.getMessage(), e);
         }
     }
 }
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import rife.bld.BaseProject;
+import rife.bld.operations.AbstractOperation;
+import rife.bld.operations.exceptions.ExitStatusException;
+import rife.template.Template;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generates version data classes for many projects in a single pass.
+ * <p>
+ * Each distinct template is compiled only once, and the classes are rendered and written in parallel on a bounded
+ * number of threads.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+public class GeneratedVersionBatchOperation extends AbstractOperation<GeneratedVersionBatchOperation> {
+    private static final Logger LOGGER = Logger.getLogger(GeneratedVersionBatchOperation.class.getName());
+    private final List<GeneratedVersion> generatedVersions_ = new ArrayList<>();
+    private final List<Result> results_ = new ArrayList<>();
+    private int threads_ = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Generates the version data classes for all the targets.
+     */
+    @Override
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    public void execute() throws Exception {
+        results_.clear();
+        if (generatedVersions_.isEmpty()) {
+            if (LOGGER.isLoggable(Level.SEVERE) && !silent()) {
+                LOGGER.severe("At least one project must be specified.");
+            }
+            throw new ExitStatusException(ExitStatusException.EXIT_FAILURE);
+        }
+
+        // build the templates sequentially, so that each distinct template is only compiled once
+        var templates = new ArrayList<Template>(generatedVersions_.size());
+        var upToDate = new boolean[generatedVersions_.size()];
+        for (var i = 0; i < generatedVersions_.size(); i++) {
+            var generatedVersion = generatedVersions_.get(i);
+            if (generatedVersion.getProject() == null) {
+                if (LOGGER.isLoggable(Level.SEVERE) && !silent()) {
+                    LOGGER.severe("A project must be specified for each target.");
+                }
+                throw new ExitStatusException(ExitStatusException.EXIT_FAILURE);
+            }
+            generatedVersion.getTimings().clear();
+            generatedVersion.clearValues();
+            try {
+                upToDate[i] = generatedVersion.isUpToDateCheck() && generatedVersion.isUpToDate();
+                templates.add(!upToDate[i] && generatedVersion.getOutputMode() == OutputMode.SOURCE
+                        ? generatedVersion.buildTemplate() : null);
+            } catch (Exception e) {
+                if (LOGGER.isLoggable(Level.SEVERE) && !silent()) {
+                    LOGGER.severe(e.getMessage());
+                }
+                throw new ExitStatusException(ExitStatusException.EXIT_FAILURE);
+            }
+        }
+
+        var executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads_, generatedVersions_.size())));
+        try {
+            var futures = new ArrayList<Future<Boolean>>(generatedVersions_.size());
+            for (var i = 0; i < generatedVersions_.size(); i++) {
+                var generatedVersion = generatedVersions_.get(i);
+                var template = templates.get(i);
+                futures.add(upToDate[i] ? null : executor.submit(() -> generatedVersion.generate(template)));
+            }
+
+            var failed = false;
+            for (var i = 0; i < futures.size(); i++) {
+                var generatedVersion = generatedVersions_.get(i);
+                Result result;
+                if (upToDate[i]) {
+                    result = new Result(generatedVersion, false, true, null);
+                } else {
+                    try {
+                        result = new Result(generatedVersion, futures.get(i).get(), false, null);
+                    } catch (ExecutionException e) {
+                        result = new Result(generatedVersion, false, false, e.getCause());
+                        failed = true;
+                    }
+                }
+                results_.add(result);
+                log(result);
+            }
+
+            if (failed) {
+                throw new ExitStatusException(ExitStatusException.EXIT_FAILURE);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Configures the operation with a target for each of the given projects, using their default settings.
+     *
+     * @param projects the projects
+     * @return this operation instance
+     */
+    public GeneratedVersionBatchOperation fromProjects(BaseProject... projects) {
+        return fromProjects(Arrays.asList(projects));
+    }
+
+    /**
+     * Configures the operation with a target for each of the given projects, using their default settings.
+     *
+     * @param projects the projects
+     * @return this operation instance
+     */
+    public GeneratedVersionBatchOperation fromProjects(Collection<? extends BaseProject> projects) {
+        for (var project : projects) {
+            operations(new GeneratedVersionOperation().fromProject(project));
+        }
+        return this;
+    }
+
+    /**
+     * Retrieves the targets.
+     *
+     * @return the generated versions
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public List<GeneratedVersion> generatedVersions() {
+        return generatedVersions_;
+    }
+
+    /**
+     * Adds targets.
+     *
+     * @param generatedVersions one or more generated versions
+     * @return this operation instance
+     */
+    public GeneratedVersionBatchOperation generatedVersions(GeneratedVersion... generatedVersions) {
+        generatedVersions_.addAll(Arrays.asList(generatedVersions));
+        return this;
+    }
+
+    /**
+     * Adds the targets of the given operations.
+     *
+     * @param operations one or more configured operations
+     * @return this operation instance
+     */
+    public GeneratedVersionBatchOperation operations(GeneratedVersionOperation... operations) {
+        for (var operation : operations) {
+            generatedVersions_.add(operation.generatedVersion());
+        }
+        return this;
+    }
+
+    /**
+     * Retrieves the results of the last execution, in the same order as the targets.
+     *
+     * @return the results
+     */
+    public List<Result> results() {
+        return Collections.unmodifiableList(results_);
+    }
+
+    /**
+     * Sets the maximum number of threads used to write the classes. (Default is: the number of available processors)
+     *
+     * @param threads the number of threads
+     * @return this operation instance
+     */
+    public GeneratedVersionBatchOperation threads(int threads) {
+        threads_ = threads;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of threads used to write the classes.
+     *
+     * @return the number of threads
+     */
+    public int threads() {
+        return threads_;
+    }
+
+    private void log(Result result) {
+        if (silent()) {
+            return;
+        }
+        var version = result.generatedVersion().getProject().version().toString();
+        if (!result.isSuccess()) {
+            if (LOGGER.isLoggable(Level.SEVERE)) {
+                LOGGER.severe(result.exception().getMessage());
+            }
+        } else if (LOGGER.isLoggable(Level.INFO)) {
+            String message;
+            if (result.isUpToDate()) {
+                message = "Generated version ({0}) class is up-to-date: file://{1}";
+            } else if (result.isWritten()) {
+                message = "Generated version ({0}) class saved to: file://{1}";
+            } else {
+                message = "Generated version ({0}) class is unchanged: file://{1}";
+            }
+            LOGGER.log(Level.INFO, message, new String[]{version, result.classFile().toURI().getPath()});
+            if (!result.isUpToDate()) {
+                for (var output : result.generatedVersion().getOutputs()) {
+                    LOGGER.log(Level.INFO, output.isWritten() ? "Generated version ({0}) output saved to: file://{1}"
+                            : "Generated version ({0}) output is unchanged: file://{1}",
+                            new String[]{version, output.file().toURI().getPath()});
+                }
+            }
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Generated version timings: {0}", result.generatedVersion().getTimings());
+        }
+    }
+
+    /**
+     * The result of generating a single target.
+     */
+    public static final class Result {
+        private final Throwable exception_;
+        private final GeneratedVersion generatedVersion_;
+        private final boolean upToDate_;
+        private final boolean written_;
+
+        Result(GeneratedVersion generatedVersion, boolean written, boolean upToDate, Throwable exception) {
+            generatedVersion_ = generatedVersion;
+            written_ = written;
+            upToDate_ = upToDate;
+            exception_ = exception;
+        }
+
+        /**
+         * Returns the class file.
+         *
+         * @return the class file
+         */
+        public File classFile() {
+            return generatedVersion_.getClassFile();
+        }
+
+        /**
+         * Returns the exception that caused the target to fail.
+         *
+         * @return the exception, or {@code null} if successful
+         */
+        public Throwable exception() {
+            return exception_;
+        }
+
+        /**
+         * Returns the target.
+         *
+         * @return the generated version
+         */
+        @SuppressFBWarnings("EI_EXPOSE_REP")
+        public GeneratedVersion generatedVersion() {
+            return generatedVersion_;
+        }
+
+        /**
+         * Returns whether the target was successfully generated.
+         *
+         * @return {@code true} if successful, {@code false} otherwise
+         */
+        public boolean isSuccess() {
+            return exception_ == null;
+        }
+
+        /**
+         * Returns whether the generation was skipped, since its inputs have not changed.
+         *
+         * @return {@code true} if up-to-date, {@code false} otherwise
+         * @see GeneratedVersion#setUpToDateCheck(boolean)
+         */
+        public boolean isUpToDate() {
+            return upToDate_;
+        }
+
+        /**
+         * Returns whether the class file was written.
+         *
+         * @return {@code true} if written, {@code false} if unchanged or failed
+         */
+        public boolean isWritten() {
+            return written_;
+        }
+    }
+}
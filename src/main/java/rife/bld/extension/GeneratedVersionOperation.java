@@ -19,11 +19,17 @@ package rife.bld.extension;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import rife.bld.BaseProject;
+import rife.bld.dependencies.Scope;
 import rife.bld.operations.AbstractOperation;
 import rife.bld.operations.exceptions.ExitStatusException;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -36,6 +42,9 @@ import java.util.logging.Logger;
 public class GeneratedVersionOperation extends AbstractOperation<GeneratedVersionOperation> {
     private static final Logger LOGGER = Logger.getLogger(GeneratedVersionOperation.class.getName());
     private final GeneratedVersion generatedVersion_ = new GeneratedVersion();
+    private File metricsFile_;
+    private long watchDebounce_ = 200L;
+    private final List<File> watchFiles_ = new ArrayList<>();
 
     /**
      * Generates a version data class for this project.
@@ -50,23 +59,68 @@ public class GeneratedVersionOperation extends AbstractOperation<GeneratedVersio
             }
             throw new ExitStatusException(ExitStatusException.EXIT_FAILURE);
         } else {
+            generatedVersion_.getTimings().clear();
+            generatedVersion_.clearValues();
             try {
-                var template = generatedVersion_.buildTemplate();
-                generatedVersion_.writeTemplate(template);
+                if (generatedVersion_.isUpToDateCheck() && generatedVersion_.isUpToDate()) {
+                    if (LOGGER.isLoggable(Level.INFO) && !silent()) {
+                        LOGGER.log(Level.INFO, "Generated version ({0}) class is up-to-date: file://{1}",
+                                new String[]{generatedVersion_.getProject().version().toString(),
+                                        generatedVersion_.getClassFile().toURI().getPath()});
+                    }
+                    return;
+                }
+                var written = generatedVersion_.generate();
                 if (LOGGER.isLoggable(Level.INFO) && !silent()) {
-                    LOGGER.log(Level.INFO, "Generated version ({0}) class saved to: file://{1}",
+                    LOGGER.log(Level.INFO, written ? "Generated version ({0}) class saved to: file://{1}"
+                                    : "Generated version ({0}) class is unchanged: file://{1}",
                             new String[]{generatedVersion_.getProject().version().toString(),
                                     generatedVersion_.getClassFile().toURI().getPath()});
+                    for (var output : generatedVersion_.getOutputs()) {
+                        LOGGER.log(Level.INFO, output.isWritten()
+                                        ? "Generated version ({0}) output saved to: file://{1}"
+                                        : "Generated version ({0}) output is unchanged: file://{1}",
+                                new String[]{generatedVersion_.getProject().version().toString(),
+                                        output.file().toURI().getPath()});
+                    }
                 }
             } catch (Exception e) {
                 if (LOGGER.isLoggable(Level.SEVERE) && !silent()) {
                     LOGGER.severe(e.getMessage());
                 }
                 throw new ExitStatusException(ExitStatusException.EXIT_FAILURE);
+            } finally {
+                reportTimings();
             }
         }
     }
 
+    /**
+     * Sets the built-in template used when no class template is specified. (Default is:
+     * {@link BuiltInTemplate#DEFAULT})
+     * <p>
+     * For example, {@link BuiltInTemplate#FAST_STARTUP} declares the build time as a {@code long} constant, so that
+     * reading the version information does not load {@code java.util.Date} or initialize the class.
+     *
+     * @param builtInTemplate the built-in template
+     * @return this operation instance
+     */
+    public GeneratedVersionOperation builtInTemplate(BuiltInTemplate builtInTemplate) {
+        generatedVersion_.setBuiltInTemplate(builtInTemplate);
+        return this;
+    }
+
+    /**
+     * Sets whether compiled templates are cached for the lifetime of the JVM. (Default is: {@code true})
+     *
+     * @param cacheTemplate {@code true} to cache templates, {@code false} to always recompile them
+     * @return this operation instance
+     */
+    public GeneratedVersionOperation cacheTemplate(boolean cacheTemplate) {
+        generatedVersion_.setCacheTemplate(cacheTemplate);
+        return this;
+    }
+
     /**
      * Sets the class name.
      *
@@ -110,6 +164,60 @@ public class GeneratedVersionOperation extends AbstractOperation<GeneratedVersio
         return classTemplate(template.toFile());
     }
 
+    /**
+     * Sets the classes directory, used when generating bytecode.
+     *
+     * @param directory the classes directory
+     * @return this operation instance
+     * @see OutputMode#CLASS
+     */
+    @SuppressFBWarnings("PATH_TRAVERSAL_IN")
+    public GeneratedVersionOperation classesDirectory(String directory) {
+        return classesDirectory(new File(directory));
+    }
+
+    /**
+     * Sets the classes directory, used when generating bytecode.
+     *
+     * @param directory the classes directory
+     * @return this operation instance
+     * @see OutputMode#CLASS
+     */
+    public GeneratedVersionOperation classesDirectory(File directory) {
+        generatedVersion_.setClassesDirectory(directory);
+        return this;
+    }
+
+    /**
+     * Sets the classes directory, used when generating bytecode.
+     *
+     * @param directory the classes directory
+     * @return this operation instance
+     * @see OutputMode#CLASS
+     */
+    public GeneratedVersionOperation classesDirectory(Path directory) {
+        return classesDirectory(directory.toFile());
+    }
+
+    /**
+     * Lists the project dependencies of the given scopes in the generated class, which then provides a
+     * {@code dependencies()} method returning them as {@code group:artifact:version:scope}.
+     * <p>
+     * The dependencies are encoded in a compact string table, decoded on first access. Only the default template
+     * supports this.
+     *
+     * @param scopes the dependency scopes, {@link Scope#compile compile} and {@link Scope#runtime runtime} if none
+     * @return this operation instance
+     */
+    public GeneratedVersionOperation dependencyManifest(Scope... scopes) {
+        if (scopes.length == 0) {
+            generatedVersion_.setDependencyScopes(Scope.compile, Scope.runtime);
+        } else {
+            generatedVersion_.setDependencyScopes(scopes);
+        }
+        return this;
+    }
+
     /**
      * Sets the destination directory.
      *
@@ -142,6 +250,28 @@ public class GeneratedVersionOperation extends AbstractOperation<GeneratedVersio
         return directory(directory.toFile());
     }
 
+    /**
+     * Sets the strategy used to compute the build time. (Default is: {@link EpochStrategy#currentTime()})
+     *
+     * @param epochStrategy the epoch strategy
+     * @return this operation instance
+     * @see EpochStrategy
+     */
+    public GeneratedVersionOperation epoch(EpochStrategy epochStrategy) {
+        generatedVersion_.setEpochStrategy(epochStrategy);
+        return this;
+    }
+
+    /**
+     * Sets a fixed build time.
+     *
+     * @param epoch the build time, in milliseconds since the epoch
+     * @return this operation instance
+     */
+    public GeneratedVersionOperation epoch(long epoch) {
+        return epoch(EpochStrategy.fixed(epoch));
+    }
+
     /**
      * Sets the file extension. (Default is: {@code .java})
      *
@@ -175,6 +305,160 @@ public class GeneratedVersionOperation extends AbstractOperation<GeneratedVersio
         return generatedVersion_;
     }
 
+    /**
+     * Sets whether writes are serialized across processes using an advisory file lock, for when several builds may
+     * generate the same file concurrently. (Default is: {@code false})
+     * <p>
+     * The lock files are created in the project's {@code build/generated-version} directory.
+     *
+     * @param lock {@code true} to lock, {@code false} otherwise
+     * @return this operation instance
+     */
+    public GeneratedVersionOperation lock(boolean lock) {
+        generatedVersion_.setLock(lock);
+        return this;
+    }
+
+    /**
+     * Sets the file the phase timings are written to, as JSON, after each execution.
+     * <p>
+     * For example: {@code build/generated-version/metrics.json}
+     *
+     * @param metricsFile the metrics file
+     * @return this operation instance
+     * @see #timings()
+     */
+    @SuppressFBWarnings("PATH_TRAVERSAL_IN")
+    public GeneratedVersionOperation metricsFile(String metricsFile) {
+        return metricsFile(new File(metricsFile));
+    }
+
+    /**
+     * Sets the file the phase timings are written to, as JSON, after each execution.
+     *
+     * @param metricsFile the metrics file
+     * @return this operation instance
+     * @see #timings()
+     */
+    public GeneratedVersionOperation metricsFile(File metricsFile) {
+        metricsFile_ = metricsFile;
+        return this;
+    }
+
+    /**
+     * Sets the file the phase timings are written to, as JSON, after each execution.
+     *
+     * @param metricsFile the metrics file
+     * @return this operation instance
+     * @see #timings()
+     */
+    public GeneratedVersionOperation metricsFile(Path metricsFile) {
+        return metricsFile(metricsFile.toFile());
+    }
+
+    /**
+     * Returns the file the phase timings are written to.
+     *
+     * @return the metrics file, or {@code null} if none
+     */
+    public File metricsFile() {
+        return metricsFile_;
+    }
+
+    /**
+     * Sets the directory of a local cache of the output files, shared by all the workspaces of the same machine, such
+     * as on CI agents.
+     * <p>
+     * The output files are restored from the cache, instead of being rendered, when all their inputs are identical,
+     * which requires a stable {@link #epoch(EpochStrategy) epoch strategy}.
+     * <p>
+     * For example: {@code ~/.cache/generated-version}
+     *
+     * @param outputCache the output cache directory
+     * @return this operation instance
+     * @see #outputCacheMaxSize(long)
+     */
+    @SuppressFBWarnings("PATH_TRAVERSAL_IN")
+    public GeneratedVersionOperation outputCache(String outputCache) {
+        return outputCache(new File(outputCache));
+    }
+
+    /**
+     * Sets the directory of a local cache of the output files, shared by all the workspaces of the same machine.
+     *
+     * @param outputCache the output cache directory
+     * @return this operation instance
+     * @see #outputCache(String)
+     */
+    public GeneratedVersionOperation outputCache(File outputCache) {
+        generatedVersion_.setOutputCache(outputCache);
+        return this;
+    }
+
+    /**
+     * Sets the directory of a local cache of the output files, shared by all the workspaces of the same machine.
+     *
+     * @param outputCache the output cache directory
+     * @return this operation instance
+     * @see #outputCache(String)
+     */
+    public GeneratedVersionOperation outputCache(Path outputCache) {
+        return outputCache(outputCache.toFile());
+    }
+
+    /**
+     * Sets whether the output files are restored from the output cache as hard links, instead of copies, when the
+     * cache is on the same file system. (Default is: {@code false})
+     *
+     * @param outputCacheLink {@code true} to link, {@code false} to copy
+     * @return this operation instance
+     */
+    public GeneratedVersionOperation outputCacheLink(boolean outputCacheLink) {
+        generatedVersion_.setOutputCacheLink(outputCacheLink);
+        return this;
+    }
+
+    /**
+     * Sets the maximum size of the output cache, above which the least recently used entries are evicted. (Default
+     * is: 64 MiB)
+     *
+     * @param outputCacheMaxSize the maximum size, in bytes
+     * @return this operation instance
+     */
+    public GeneratedVersionOperation outputCacheMaxSize(long outputCacheMaxSize) {
+        generatedVersion_.setOutputCacheMaxSize(outputCacheMaxSize);
+        return this;
+    }
+
+    /**
+     * Sets the output mode. (Default is: {@link OutputMode#SOURCE})
+     *
+     * @param outputMode the output mode
+     * @return this operation instance
+     */
+    public GeneratedVersionOperation outputMode(OutputMode outputMode) {
+        generatedVersion_.setOutputMode(outputMode);
+        return this;
+    }
+
+    /**
+     * Adds outputs, rendered from the same values as the version class in a single pass.
+     * <p>
+     * For example, a Kotlin object and a JSON file:
+     * <pre>{@code
+     * .outputs(new VersionOutput().classTemplate("version_kt.txt").directory("src/main/kotlin").extension(".kt"),
+     *          new VersionOutput().classTemplate("version_json.txt").directory("build/dist").packageName("")
+     *                  .className("version").extension(".json"))
+     * }</pre>
+     *
+     * @param outputs one or more outputs
+     * @return this operation instance
+     */
+    public GeneratedVersionOperation outputs(VersionOutput... outputs) {
+        generatedVersion_.addOutputs(outputs);
+        return this;
+    }
+
     /**
      * Sets the package name.
      *
@@ -196,4 +480,284 @@ public class GeneratedVersionOperation extends AbstractOperation<GeneratedVersio
         generatedVersion_.setProjectName(projectName);
         return this;
     }
+
+    /**
+     * Renders the files that {@link #execute()} would write, in memory, without writing any file.
+     * <p>
+     * The inputs of the values are still read, such as the template, the Git repository, and the sources and the
+     * index of their digests in the project's build directory, but none of them is written.
+     * <p>
+     * Each file is returned with its path relative to its target directory, such as
+     * {@code com/example/GeneratedVersion.java}, so that it can be consumed in-process, for example by a jar
+     * assembler. The values, such as the build time, are computed anew, as when executing.
+     *
+     * @return the rendered files, starting with the version class
+     * @throws ExitStatusException if no project was specified, or the files could not be rendered
+     */
+    @SuppressWarnings({"PMD.PreserveStackTrace", "PMD.AvoidCatchingGenericException"})
+    @SuppressFBWarnings("LEST_LOST_EXCEPTION_STACK_TRACE")
+    public List<RenderedOutput> render() throws ExitStatusException {
+        if (generatedVersion_.getProject() == null) {
+            if (LOGGER.isLoggable(Level.SEVERE) && !silent()) {
+                LOGGER.severe("A project must be specified.");
+            }
+            throw new ExitStatusException(ExitStatusException.EXIT_FAILURE);
+        }
+        generatedVersion_.getTimings().clear();
+        generatedVersion_.clearValues();
+        try {
+            return generatedVersion_.render();
+        } catch (Exception e) {
+            if (LOGGER.isLoggable(Level.SEVERE) && !silent()) {
+                LOGGER.severe(e.getMessage());
+            }
+            throw new ExitStatusException(ExitStatusException.EXIT_FAILURE);
+        }
+    }
+
+    /**
+     * Sets the resources directory, used when generating a properties resource.
+     *
+     * @param directory the resources directory
+     * @return this operation instance
+     * @see OutputMode#PROPERTIES
+     */
+    @SuppressFBWarnings("PATH_TRAVERSAL_IN")
+    public GeneratedVersionOperation resourcesDirectory(String directory) {
+        return resourcesDirectory(new File(directory));
+    }
+
+    /**
+     * Sets the resources directory, used when generating a properties resource.
+     *
+     * @param directory the resources directory
+     * @return this operation instance
+     * @see OutputMode#PROPERTIES
+     */
+    public GeneratedVersionOperation resourcesDirectory(File directory) {
+        generatedVersion_.setResourcesDirectory(directory);
+        return this;
+    }
+
+    /**
+     * Sets the resources directory, used when generating a properties resource.
+     *
+     * @param directory the resources directory
+     * @return this operation instance
+     * @see OutputMode#PROPERTIES
+     */
+    public GeneratedVersionOperation resourcesDirectory(Path directory) {
+        return resourcesDirectory(directory.toFile());
+    }
+
+    /**
+     * Sets whether written files, and their directory entries, are flushed to the storage device before returning.
+     * (Default is: {@code false})
+     *
+     * @param sync {@code true} to sync, {@code false} otherwise
+     * @return this operation instance
+     */
+    public GeneratedVersionOperation sync(boolean sync) {
+        generatedVersion_.setSync(sync);
+        return this;
+    }
+
+    /**
+     * Sets the name of the class template, without its {@code .txt} extension, to find in the
+     * {@link #templatePath(File...) template path}, then in the {@code templates} directory of the bld classpath.
+     * <p>
+     * The class template, if set, takes precedence.
+     *
+     * @param templateName the template name
+     * @return this operation instance
+     */
+    public GeneratedVersionOperation templateName(String templateName) {
+        generatedVersion_.setTemplateName(templateName);
+        return this;
+    }
+
+    /**
+     * Adds directories to the template path, such as project and shared template directories, searched in order.
+     *
+     * @param directories one or more directories
+     * @return this operation instance
+     * @see #templateName(String)
+     */
+    @SuppressFBWarnings("PATH_TRAVERSAL_IN")
+    public GeneratedVersionOperation templatePath(String... directories) {
+        for (var directory : directories) {
+            generatedVersion_.addTemplateDirectories(new File(directory));
+        }
+        return this;
+    }
+
+    /**
+     * Adds directories to the template path, such as project and shared template directories, searched in order.
+     *
+     * @param directories one or more directories
+     * @return this operation instance
+     * @see #templateName(String)
+     */
+    public GeneratedVersionOperation templatePath(File... directories) {
+        generatedVersion_.addTemplateDirectories(directories);
+        return this;
+    }
+
+    /**
+     * Adds directories to the template path, such as project and shared template directories, searched in order.
+     *
+     * @param directories one or more directories
+     * @return this operation instance
+     * @see #templateName(String)
+     */
+    public GeneratedVersionOperation templatePath(Path... directories) {
+        for (var directory : directories) {
+            generatedVersion_.addTemplateDirectories(directory.toFile());
+        }
+        return this;
+    }
+
+    /**
+     * Returns the time spent in each phase of the last execution.
+     * <p>
+     * The timings are also logged at the {@link Level#FINE FINE} level.
+     *
+     * @return the phase timings
+     */
+    public PhaseTimings timings() {
+        return generatedVersion_.getTimings();
+    }
+
+    /**
+     * Sets whether the generation is skipped entirely when its inputs have not changed since the last execution.
+     * (Default is: {@code false})
+     * <p>
+     * Since the build time is part of the inputs, this is only effective with a stable {@link EpochStrategy}.
+     *
+     * @param upToDateCheck {@code true} to enable the up-to-date check, {@code false} otherwise
+     * @return this operation instance
+     * @see GeneratedVersion#setUpToDateCheck(boolean)
+     */
+    public GeneratedVersionOperation upToDateCheck(boolean upToDateCheck) {
+        generatedVersion_.setUpToDateCheck(upToDateCheck);
+        return this;
+    }
+
+    /**
+     * Adds value providers, which supply additional template values.
+     *
+     * @param valueProviders one or more value providers
+     * @return this operation instance
+     * @see ValueProvider
+     */
+    public GeneratedVersionOperation valueProviders(ValueProvider... valueProviders) {
+        generatedVersion_.addValueProviders(valueProviders);
+        return this;
+    }
+
+    /**
+     * Generates the version class, then watches the templates and the {@link #watchFiles(File...) watched files},
+     * regenerating the class whenever they change, until the current thread is interrupted.
+     * <p>
+     * Changes to the project version in the build code are not detected, since that code is already compiled.
+     *
+     * @throws Exception if an error occurs
+     * @see #watcher()
+     */
+    public void watch() throws Exception {
+        try (var watcher = watcher()) {
+            watcher.watch();
+        }
+    }
+
+    /**
+     * Sets the quiet period to wait for after a change, before regenerating the version class. (Default is:
+     * {@code 200})
+     *
+     * @param millis the debounce period, in milliseconds
+     * @return this operation instance
+     */
+    public GeneratedVersionOperation watchDebounce(long millis) {
+        watchDebounce_ = millis;
+        return this;
+    }
+
+    /**
+     * Adds files to watch, besides the templates, such as a file the project reads its version from each time it is
+     * requested.
+     *
+     * @param files one or more files
+     * @return this operation instance
+     */
+    @SuppressFBWarnings("PATH_TRAVERSAL_IN")
+    public GeneratedVersionOperation watchFiles(String... files) {
+        for (var file : files) {
+            watchFiles_.add(new File(file));
+        }
+        return this;
+    }
+
+    /**
+     * Adds files to watch, besides the templates, such as a file the project reads its version from each time it is
+     * requested.
+     *
+     * @param files one or more files
+     * @return this operation instance
+     */
+    public GeneratedVersionOperation watchFiles(File... files) {
+        watchFiles_.addAll(List.of(files));
+        return this;
+    }
+
+    /**
+     * Adds files to watch, besides the templates, such as a file the project reads its version from each time it is
+     * requested.
+     *
+     * @param files one or more files
+     * @return this operation instance
+     */
+    public GeneratedVersionOperation watchFiles(Path... files) {
+        for (var file : files) {
+            watchFiles_.add(file.toFile());
+        }
+        return this;
+    }
+
+    /**
+     * Creates a watcher for this operation, which must be closed once done.
+     *
+     * @return the watcher
+     * @throws ExitStatusException if no project was specified
+     * @throws IOException         if the watched files could not be registered
+     * @see GeneratedVersionWatcher#watch()
+     */
+    public GeneratedVersionWatcher watcher() throws ExitStatusException, IOException {
+        if (generatedVersion_.getProject() == null) {
+            if (LOGGER.isLoggable(Level.SEVERE) && !silent()) {
+                LOGGER.severe("A project must be specified.");
+            }
+            throw new ExitStatusException(ExitStatusException.EXIT_FAILURE);
+        }
+        return new GeneratedVersionWatcher(this, watchFiles_, watchDebounce_);
+    }
+
+    private void reportTimings() {
+        var timings = generatedVersion_.getTimings();
+        if (LOGGER.isLoggable(Level.FINE) && !silent()) {
+            LOGGER.log(Level.FINE, "Generated version timings: {0}", timings);
+        }
+        if (metricsFile_ != null) {
+            try {
+                var parentFile = metricsFile_.getAbsoluteFile().getParentFile();
+                if (!parentFile.exists() && !parentFile.mkdirs() && !parentFile.exists()) {
+                    throw new IOException("Could not create the metrics directory: " + parentFile.getAbsolutePath());
+                }
+                Files.writeString(metricsFile_.toPath(), timings.toJson(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                if (LOGGER.isLoggable(Level.WARNING) && !silent()) {
+                    LOGGER.warning("Unable to write the metrics file: " + e.getMessage());
+                }
+            }
+        }
+    }
 }
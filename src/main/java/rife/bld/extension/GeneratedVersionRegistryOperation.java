@@ -0,0 +1,401 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import rife.bld.BaseProject;
+import rife.bld.operations.AbstractOperation;
+import rife.bld.operations.exceptions.ExitStatusException;
+import rife.template.Template;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generates a single registry class holding the name and version information of many modules.
+ * <p>
+ * The modules are sorted by name, so that the registry looks them up with a binary search, instead of loading each
+ * module's version class.
+ * <p>
+ * The values are the ones already resolved by each module, which are left as is. Modules generated before the
+ * registry, by the same operations, therefore share the registry's build times. The values of the other modules are
+ * resolved, and kept until the modules are generated again.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+public class GeneratedVersionRegistryOperation extends AbstractOperation<GeneratedVersionRegistryOperation> {
+    private static final Logger LOGGER = Logger.getLogger(GeneratedVersionRegistryOperation.class.getName());
+    private final List<GeneratedVersion> generatedVersions_ = new ArrayList<>();
+    private final PhaseTimings timings_ = new PhaseTimings();
+    private boolean cacheTemplate_ = true;
+    private String className_ = "VersionRegistry";
+    private File directory_;
+    private boolean lock_;
+    private String packageName_;
+    private BaseProject project_;
+    private File registryFile_;
+    private boolean sync_;
+
+    /**
+     * Generates the registry class.
+     */
+    @Override
+    @SuppressWarnings({"PMD.PreserveStackTrace", "PMD.AvoidCatchingGenericException"})
+    @SuppressFBWarnings("LEST_LOST_EXCEPTION_STACK_TRACE")
+    public void execute() throws Exception {
+        if (generatedVersions_.isEmpty()) {
+            if (LOGGER.isLoggable(Level.SEVERE) && !silent()) {
+                LOGGER.severe("At least one project must be specified.");
+            }
+            throw new ExitStatusException(ExitStatusException.EXIT_FAILURE);
+        }
+        if (directory_ == null || packageName_ == null) {
+            if (LOGGER.isLoggable(Level.SEVERE) && !silent()) {
+                LOGGER.severe("The registry directory and package name must be specified.");
+            }
+            throw new ExitStatusException(ExitStatusException.EXIT_FAILURE);
+        }
+
+        timings_.clear();
+        try {
+            var start = System.nanoTime();
+            var template = buildTemplate();
+            timings_.record(PhaseTimings.TEMPLATE, start);
+
+            registryFile_ = resolveRegistryFile();
+            start = System.nanoTime();
+            var parentFile = registryFile_.getParentFile();
+            if (!parentFile.exists() && !parentFile.mkdirs() && !parentFile.exists()) {
+                throw new IOException("Could not create the registry package directories: "
+                        + parentFile.getAbsolutePath());
+            }
+            timings_.record(PhaseTimings.DIRECTORIES, start);
+
+            var target = registryFile_.toPath();
+            AtomicFiles.IOAction<Boolean> writer = () -> AtomicFiles.writeIfChanged(target,
+                    out -> template.writeContent(out, StandardCharsets.UTF_8.name()), sync_, timings_);
+            var written = lock_ ? AtomicFiles.locked(lockDirectory(), target, writer) : writer.run();
+            if (LOGGER.isLoggable(Level.INFO) && !silent()) {
+                LOGGER.log(Level.INFO, written ? "Generated version registry saved to: file://{0}"
+                        : "Generated version registry is unchanged: file://{0}", registryFile_.toURI().getPath());
+            }
+        } catch (Exception e) {
+            if (LOGGER.isLoggable(Level.SEVERE) && !silent()) {
+                LOGGER.severe(e.getMessage());
+            }
+            throw new ExitStatusException(ExitStatusException.EXIT_FAILURE);
+        }
+    }
+
+    /**
+     * Sets whether the compiled registry template is cached for the lifetime of the JVM. (Default is: {@code true})
+     *
+     * @param cacheTemplate {@code true} to cache the template, {@code false} to always recompile it
+     * @return this operation instance
+     */
+    public GeneratedVersionRegistryOperation cacheTemplate(boolean cacheTemplate) {
+        cacheTemplate_ = cacheTemplate;
+        return this;
+    }
+
+    /**
+     * Returns whether the compiled registry template is cached for the lifetime of the JVM.
+     *
+     * @return {@code true} if cached, {@code false} otherwise
+     */
+    public boolean cacheTemplate() {
+        return cacheTemplate_;
+    }
+
+    /**
+     * Sets the registry class name. (Default is: {@code VersionRegistry})
+     *
+     * @param className the class name
+     * @return this operation instance
+     */
+    public GeneratedVersionRegistryOperation className(String className) {
+        className_ = className;
+        return this;
+    }
+
+    /**
+     * Returns the registry class name.
+     *
+     * @return the class name
+     */
+    public String className() {
+        return className_;
+    }
+
+    /**
+     * Sets the directory the registry class is generated in.
+     *
+     * @param directory the directory
+     * @return this operation instance
+     */
+    @SuppressFBWarnings("PATH_TRAVERSAL_IN")
+    public GeneratedVersionRegistryOperation directory(String directory) {
+        return directory(new File(directory));
+    }
+
+    /**
+     * Sets the directory the registry class is generated in.
+     *
+     * @param directory the directory
+     * @return this operation instance
+     */
+    public GeneratedVersionRegistryOperation directory(File directory) {
+        directory_ = directory;
+        return this;
+    }
+
+    /**
+     * Sets the directory the registry class is generated in.
+     *
+     * @param directory the directory
+     * @return this operation instance
+     */
+    public GeneratedVersionRegistryOperation directory(Path directory) {
+        return directory(directory.toFile());
+    }
+
+    /**
+     * Returns the directory the registry class is generated in.
+     *
+     * @return the directory
+     */
+    public File directory() {
+        return directory_;
+    }
+
+    /**
+     * Configures the operation to generate the registry class in the main source directory and package of the given
+     * project, such as the plugin host.
+     *
+     * @param project the project
+     * @return this operation instance
+     */
+    public GeneratedVersionRegistryOperation fromProject(BaseProject project) {
+        project_ = project;
+        directory_ = project.srcMainJavaDirectory();
+        packageName_ = project.pkg();
+        return this;
+    }
+
+    /**
+     * Adds a module for each of the given projects, using their default settings.
+     *
+     * @param projects the projects
+     * @return this operation instance
+     */
+    public GeneratedVersionRegistryOperation fromProjects(BaseProject... projects) {
+        return fromProjects(Arrays.asList(projects));
+    }
+
+    /**
+     * Adds a module for each of the given projects, using their default settings.
+     *
+     * @param projects the projects
+     * @return this operation instance
+     */
+    public GeneratedVersionRegistryOperation fromProjects(Collection<? extends BaseProject> projects) {
+        for (var project : projects) {
+            operations(new GeneratedVersionOperation().fromProject(project));
+        }
+        return this;
+    }
+
+    /**
+     * Retrieves the modules.
+     *
+     * @return the generated versions
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public List<GeneratedVersion> generatedVersions() {
+        return generatedVersions_;
+    }
+
+    /**
+     * Adds modules.
+     *
+     * @param generatedVersions one or more generated versions
+     * @return this operation instance
+     */
+    public GeneratedVersionRegistryOperation generatedVersions(GeneratedVersion... generatedVersions) {
+        generatedVersions_.addAll(Arrays.asList(generatedVersions));
+        return this;
+    }
+
+    /**
+     * Sets whether the registry is written while holding an advisory file lock, for when several builds may generate
+     * it concurrently. (Default is: {@code false})
+     * <p>
+     * The lock files are created in the {@code build/generated-version} directory of the
+     * {@link #fromProject(BaseProject) registry's project}, or else of the first module's project.
+     *
+     * @param lock {@code true} to lock, {@code false} otherwise
+     * @return this operation instance
+     */
+    public GeneratedVersionRegistryOperation lock(boolean lock) {
+        lock_ = lock;
+        return this;
+    }
+
+    /**
+     * Returns whether the registry is written while holding an advisory file lock.
+     *
+     * @return {@code true} if locked, {@code false} otherwise
+     */
+    public boolean lock() {
+        return lock_;
+    }
+
+    /**
+     * Adds the modules of the given operations.
+     *
+     * @param operations one or more configured operations
+     * @return this operation instance
+     */
+    public GeneratedVersionRegistryOperation operations(GeneratedVersionOperation... operations) {
+        for (var operation : operations) {
+            generatedVersions_.add(operation.generatedVersion());
+        }
+        return this;
+    }
+
+    /**
+     * Sets the registry package name.
+     *
+     * @param packageName the package name
+     * @return this operation instance
+     */
+    public GeneratedVersionRegistryOperation packageName(String packageName) {
+        packageName_ = packageName;
+        return this;
+    }
+
+    /**
+     * Returns the registry package name.
+     *
+     * @return the package name
+     */
+    public String packageName() {
+        return packageName_;
+    }
+
+    /**
+     * Returns the registry class file, once generated.
+     *
+     * @return the registry file
+     */
+    public File registryFile() {
+        return registryFile_;
+    }
+
+    /**
+     * Sets whether the registry file, and its directory entry, are flushed to the storage device before returning.
+     * (Default is: {@code false})
+     *
+     * @param sync {@code true} to sync, {@code false} otherwise
+     * @return this operation instance
+     */
+    public GeneratedVersionRegistryOperation sync(boolean sync) {
+        sync_ = sync;
+        return this;
+    }
+
+    /**
+     * Returns whether the registry file is flushed to the storage device before returning.
+     *
+     * @return {@code true} if synced, {@code false} otherwise
+     */
+    public boolean sync() {
+        return sync_;
+    }
+
+    /**
+     * Returns the time spent in each phase of the last execution.
+     *
+     * @return the phase timings
+     */
+    public PhaseTimings timings() {
+        return timings_;
+    }
+
+    /**
+     * Builds the registry class template.
+     *
+     * @return the template, with all its values set
+     * @throws IllegalArgumentException if two modules have the same name
+     */
+    Template buildTemplate() {
+        // sorted with the natural order of strings, as used by the generated binary search
+        var modules = new TreeMap<String, GeneratedVersion>();
+        for (var generatedVersion : generatedVersions_) {
+            generatedVersion.applyDefaults();
+            if (modules.put(generatedVersion.getProjectName(), generatedVersion) != null) {
+                throw new IllegalArgumentException("Duplicate module name: " + generatedVersion.getProjectName());
+            }
+        }
+
+        var template = TemplateCache.builtIn(TemplateCache.REGISTRY_TEMPLATE, cacheTemplate_);
+        template.setValue("packageName", packageName_);
+        template.setValue("className", className_);
+        template.setValue("size", modules.size());
+        for (var id : new String[]{"names", "versions", "versionCodes", "epochs"}) {
+            template.setValue(id, "");
+        }
+        for (var module : modules.entrySet()) {
+            var generatedVersion = module.getValue();
+            var version = generatedVersion.getProject().version();
+
+            template.setValue("value", DependencyValueProvider.escapeJava(module.getKey()));
+            template.appendBlock("names", "string");
+            template.setValue("value", DependencyValueProvider.escapeJava(version.toString()));
+            template.appendBlock("versions", "string");
+            template.setValue("value", VersionCode.of(version.majorInt(), version.minorInt(),
+                    version.revisionInt(), version.qualifier()));
+            template.appendBlock("versionCodes", "long");
+            template.setValue("value", generatedVersion.epoch());
+            template.appendBlock("epochs", "long");
+        }
+        return template;
+    }
+
+    private Path lockDirectory() {
+        var project = project_ != null ? project_ : generatedVersions_.get(0).getProject();
+        return new File(project.buildDirectory(), Fingerprint.DIRECTORY).toPath();
+    }
+
+    private File resolveRegistryFile() {
+        if (packageName_.isEmpty()) {
+            return new File(directory_, className_ + ".java");
+        }
+        return Path.of(directory_.getAbsolutePath(), packageName_.replace(".", File.separator),
+                className_ + ".java").toFile();
+    }
+}
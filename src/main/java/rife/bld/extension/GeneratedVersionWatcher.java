@@ -0,0 +1,208 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches the inputs of a {@link GeneratedVersionOperation}, such as its templates, and regenerates the version class
+ * whenever they change.
+ * <p>
+ * Bursts of events, such as those caused by an editor saving a file, are debounced. The version class is only rendered
+ * again when the fingerprint of its inputs has changed, and only written when its content has. The build time of the
+ * last generation is kept when comparing the fingerprints, so that it alone does not cause the class to be rendered
+ * again.
+ * <p>
+ * When the template is looked up by name, all the existing directories of the template search path are watched, so
+ * that a template added to an earlier directory is picked up.
+ * <p>
+ * Only the templates and the additional watched files are watched. The project version is part of the compiled build
+ * code, so changing it in the build code is not detected until the build is restarted. A change to a watched file only
+ * updates the version if the project reads the version from that file each time it is requested.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ * @see GeneratedVersionOperation#watch()
+ */
+public class GeneratedVersionWatcher implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(GeneratedVersionWatcher.class.getName());
+    private final long debounce_;
+    private final Map<Path, Set<Path>> files_ = new HashMap<>();
+    private final GeneratedVersionOperation operation_;
+    private final WatchService watchService_;
+    private String fingerprint_;
+
+    /**
+     * Creates a new watcher.
+     *
+     * @param operation the operation
+     * @param files     the additional files to watch, besides the templates
+     * @param debounce  the quiet period, in milliseconds, to wait for after a change before regenerating
+     * @throws IOException if an I/O error occurs
+     */
+    GeneratedVersionWatcher(GeneratedVersionOperation operation, Collection<File> files, long debounce)
+            throws IOException {
+        operation_ = operation;
+        debounce_ = debounce;
+
+        var generatedVersion = operation.generatedVersion();
+        var watched = new HashSet<File>(files);
+        if (generatedVersion.getTemplate() == null && generatedVersion.getTemplateName() != null) {
+            var fileName = new File(generatedVersion.getTemplateName() + TemplateSearchPath.EXTENSION).getName();
+            for (var dir : TemplateSearchPath.templateDirectories(generatedVersion.getTemplateDirectories(),
+                    generatedVersion.getTemplateName())) {
+                // directories created later cannot be watched
+                if (dir.isDirectory()) {
+                    watched.add(new File(dir, fileName));
+                }
+            }
+        } else if (generatedVersion.getTemplate() != null) {
+            watched.add(generatedVersion.getTemplate());
+        }
+        for (var output : generatedVersion.getOutputs()) {
+            if (output.classTemplate() != null) {
+                watched.add(output.classTemplate());
+            }
+        }
+
+        watchService_ = FileSystems.getDefault().newWatchService();
+        try {
+            for (var file : watched) {
+                var path = file.getAbsoluteFile().toPath().normalize();
+                var dir = path.getParent();
+                if (!files_.containsKey(dir)) {
+                    dir.register(watchService_, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                }
+                files_.computeIfAbsent(dir, d -> new HashSet<>()).add(path.getFileName());
+            }
+        } catch (IOException e) {
+            watchService_.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Stops watching.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        watchService_.close();
+    }
+
+    /**
+     * Returns the watched files.
+     *
+     * @return the watched files
+     */
+    public Set<Path> files() {
+        var files = new HashSet<Path>();
+        files_.forEach((dir, names) -> names.forEach(name -> files.add(dir.resolve(name))));
+        return files;
+    }
+
+    /**
+     * Generates the version class, then regenerates it whenever the watched files change, until this watcher is
+     * closed or the current thread is interrupted.
+     *
+     * @throws InterruptedException if interrupted while waiting for changes
+     */
+    public void watch() throws InterruptedException {
+        regenerate();
+        try {
+            while (true) {
+                // wait for a relevant change, then until no more events are received for the debounce period
+                if (isRelevant(watchService_.take())) {
+                    WatchKey key;
+                    while ((key = watchService_.poll(debounce_, TimeUnit.MILLISECONDS)) != null) {
+                        isRelevant(key);
+                    }
+                    regenerate();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // closed, stop watching
+        }
+    }
+
+    private boolean isRelevant(WatchKey key) {
+        var relevant = false;
+        var names = files_.get((Path) key.watchable());
+        for (var event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || (names != null && names.contains((Path) event.context()))) {
+                relevant = true;
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void regenerate() {
+        var generatedVersion = operation_.generatedVersion();
+        generatedVersion.getTimings().clear();
+        generatedVersion.clearValuesExceptEpoch();
+        try {
+            // the template is resolved again, in case one was added to or removed from the search path
+            var fingerprint = generatedVersion.fingerprint();
+            if (fingerprint.equals(fingerprint_) && Fingerprint.exists(generatedVersion)) {
+                if (LOGGER.isLoggable(Level.FINE) && !operation_.silent()) {
+                    LOGGER.fine("Generated version inputs are unchanged.");
+                }
+                return;
+            }
+            if (fingerprint_ != null) {
+                // the inputs have changed, use a new build time
+                generatedVersion.clearValues();
+                fingerprint = generatedVersion.fingerprint();
+            }
+            var written = generatedVersion.generate();
+            fingerprint_ = fingerprint;
+            if (LOGGER.isLoggable(Level.INFO) && !operation_.silent()) {
+                LOGGER.log(Level.INFO, written ? "Generated version ({0}) class saved to: file://{1}"
+                                : "Generated version ({0}) class is unchanged: file://{1}",
+                        new String[]{generatedVersion.getProject().version().toString(),
+                                generatedVersion.getClassFile().toURI().getPath()});
+            }
+        } catch (Exception e) {
+            // keep watching, the next change may fix the error
+            fingerprint_ = null;
+            if (LOGGER.isLoggable(Level.SEVERE) && !operation_.silent()) {
+                LOGGER.severe(e.getMessage());
+            }
+        }
+    }
+}
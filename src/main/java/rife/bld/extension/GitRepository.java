@@ -0,0 +1,661 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads Git repository metadata directly from the {@code .git} directory, without spawning a {@code git} process.
+ * <p>
+ * Loose objects, pack files (including deltified objects), loose refs, {@code packed-refs} and version 2 to 4 index
+ * files are supported.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+final class GitRepository {
+    private static final int EXTENDED_FLAG = 0x4000;
+    private static final int GITLINK = 0160000;
+    private static final String HEADS_PREFIX = "refs/heads/";
+    private static final int INDEX_SIGNATURE = 0x44495243; // DIRC
+    private static final int OBJ_OFS_DELTA = 6;
+    private static final int OBJ_REF_DELTA = 7;
+    private static final String REF_PREFIX = "ref: ";
+    private static final int SKIP_WORKTREE_FLAG = 0x4000;
+    private static final int SYMLINK = 0120000;
+    private static final int TREE_EXTENSION = 0x54524545; // TREE
+    private static final int TYPE_MASK = 0170000;
+    private final File commonDir_;
+    private final File gitDir_;
+    private final File workTree_;
+    private File[] packIndexes_;
+
+    private GitRepository(File workTree, File gitDir, File commonDir) {
+        workTree_ = workTree;
+        gitDir_ = gitDir;
+        commonDir_ = commonDir;
+    }
+
+    /**
+     * Locates the Git repository containing the given directory.
+     *
+     * @param directory the directory to start searching from
+     * @return the repository, or {@code null} if none could be found
+     * @throws IOException if an I/O error occurs
+     */
+    @SuppressFBWarnings("PATH_TRAVERSAL_IN")
+    static GitRepository find(File directory) throws IOException {
+        var dir = directory.getAbsoluteFile();
+        while (dir != null) {
+            var dotGit = new File(dir, ".git");
+            if (dotGit.isDirectory()) {
+                return new GitRepository(dir, dotGit, commonDir(dotGit));
+            } else if (dotGit.isFile()) {
+                // worktree or submodule: .git is a file pointing to the actual git directory
+                var content = readString(dotGit);
+                if (content.startsWith("gitdir:")) {
+                    var gitDir = new File(content.substring("gitdir:".length()).trim());
+                    if (!gitDir.isAbsolute()) {
+                        gitDir = new File(dir, gitDir.getPath());
+                    }
+                    return new GitRepository(dir, gitDir, commonDir(gitDir));
+                }
+            }
+            dir = dir.getParentFile();
+        }
+        return null;
+    }
+
+    @SuppressFBWarnings("PATH_TRAVERSAL_IN")
+    private static File commonDir(File gitDir) throws IOException {
+        var commonDir = new File(gitDir, "commondir");
+        if (commonDir.isFile()) {
+            var dir = new File(readString(commonDir));
+            return dir.isAbsolute() ? dir : new File(gitDir, dir.getPath());
+        }
+        return gitDir;
+    }
+
+    private static String readString(File file) throws IOException {
+        return Files.readString(file.toPath(), StandardCharsets.UTF_8).trim();
+    }
+
+    private static byte[] applyDelta(byte[] base, byte[] delta) throws IOException {
+        var pos = new int[]{0};
+        readVarInt(delta, pos); // source size
+        var result = new byte[(int) readVarInt(delta, pos)];
+        var out = 0;
+        while (pos[0] < delta.length) {
+            var cmd = delta[pos[0]++] & 0xff;
+            if ((cmd & 0x80) != 0) {
+                var offset = 0;
+                var size = 0;
+                for (var i = 0; i < 4; i++) {
+                    if ((cmd & (1 << i)) != 0) {
+                        offset |= (delta[pos[0]++] & 0xff) << (8 * i);
+                    }
+                }
+                for (var i = 0; i < 3; i++) {
+                    if ((cmd & (0x10 << i)) != 0) {
+                        size |= (delta[pos[0]++] & 0xff) << (8 * i);
+                    }
+                }
+                if (size == 0) {
+                    size = 0x10000;
+                }
+                System.arraycopy(base, offset, result, out, size);
+                out += size;
+            } else if (cmd != 0) {
+                System.arraycopy(delta, pos[0], result, out, cmd);
+                pos[0] += cmd;
+                out += cmd;
+            } else {
+                throw new IOException("Invalid delta instruction.");
+            }
+        }
+        return result;
+    }
+
+    private static long readVarInt(byte[] data, int[] pos) {
+        long value = 0;
+        var shift = 0;
+        int b;
+        do {
+            b = data[pos[0]++] & 0xff;
+            value |= (long) (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static byte[] inflate(InputStream in) throws IOException {
+        try (var inflater = new InflaterInputStream(in)) {
+            return inflater.readAllBytes();
+        }
+    }
+
+    private static byte[] inflate(RandomAccessFile pack, long position, int size) throws IOException {
+        var inflater = new Inflater();
+        try {
+            pack.seek(position);
+            var result = new byte[size];
+            var buffer = new byte[Math.min(Math.max(size, 64), 8192)];
+            var out = 0;
+            while (out < size && !inflater.finished()) {
+                if (inflater.needsInput()) {
+                    var read = pack.read(buffer);
+                    if (read == -1) {
+                        throw new IOException("Unexpected end of pack file.");
+                    }
+                    inflater.setInput(buffer, 0, read);
+                }
+                out += inflater.inflate(result, out, size - out);
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted pack file object: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Returns the name of the current branch, such as {@code main}.
+     *
+     * @return the branch name, or {@code HEAD} if detached
+     * @throws IOException if an I/O error occurs
+     */
+    String branch() throws IOException {
+        var head = readString(new File(gitDir_, "HEAD"));
+        if (head.startsWith(REF_PREFIX)) {
+            var ref = head.substring(REF_PREFIX.length()).trim();
+            return ref.startsWith(HEADS_PREFIX) ? ref.substring(HEADS_PREFIX.length()) : ref;
+        }
+        return "HEAD";
+    }
+
+    /**
+     * Returns the commit time of {@code HEAD}, in milliseconds since the epoch.
+     *
+     * @return the commit time, or {@code -1} if the repository has no commit
+     * @throws IOException if an I/O error occurs
+     */
+    long commitTime() throws IOException {
+        var head = head();
+        if (head == null) {
+            return -1L;
+        }
+        var commit = readObject(head);
+        if (commit == null) {
+            return -1L;
+        }
+        for (var line : new String(commit, StandardCharsets.UTF_8).split("\n")) {
+            if (line.isEmpty()) {
+                break; // end of headers
+            } else if (line.startsWith("committer ")) {
+                var parts = line.substring(line.lastIndexOf('>') + 1).trim().split(" ");
+                return Long.parseLong(parts[0]) * 1000L;
+            }
+        }
+        return -1L;
+    }
+
+    /**
+     * Returns the object id of {@code HEAD}.
+     *
+     * @return the object id, or {@code null} if the repository has no commit
+     * @throws IOException if an I/O error occurs
+     */
+    String head() throws IOException {
+        var head = readString(new File(gitDir_, "HEAD"));
+        if (head.startsWith(REF_PREFIX)) {
+            return resolveRef(head.substring(REF_PREFIX.length()).trim());
+        }
+        return head;
+    }
+
+    /**
+     * Determines whether the work tree or the index differ from {@code HEAD}, ignoring untracked files.
+     * <p>
+     * The index is first compared to the {@code HEAD} tree, using its cached tree when valid. Each tracked file is
+     * then compared to its index entry, by size and last modified time, and only hashed when those do not match or
+     * are too recent to be trusted. Line ending conversions and filters are not applied.
+     *
+     * @return {@code true} if dirty, {@code false} otherwise
+     * @throws IOException if an I/O error occurs
+     */
+    boolean isDirty() throws IOException {
+        var indexFile = new File(gitDir_, "index");
+        var index = indexFile.isFile() ? readIndex(indexFile.toPath()) : new Index();
+        var headTree = headTree();
+
+        if (headTree == null) {
+            return !index.entries.isEmpty();
+        }
+        if (!headTree.equals(index.tree)) {
+            var tree = new HashMap<String, String>();
+            readTree(headTree, "", tree);
+            if (tree.size() != index.entries.size()) {
+                return true;
+            }
+            for (var entry : index.entries) {
+                if (!entry.id.equals(tree.get(entry.path))) {
+                    return true;
+                }
+            }
+        }
+
+        for (var entry : index.entries) {
+            if (entry.stage != 0) {
+                return true;
+            } else if (!entry.skipWorktree && (entry.mode & TYPE_MASK) != GITLINK && isModified(entry, index.mtime)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the work tree directory.
+     *
+     * @return the work tree
+     */
+    File workTree() {
+        return workTree_;
+    }
+
+    /**
+     * Reads the content of an object, without its header.
+     *
+     * @param id the object id
+     * @return the content, or {@code null} if the object could not be found
+     * @throws IOException if an I/O error occurs
+     */
+    byte[] readObject(String id) throws IOException {
+        var loose = new File(commonDir_, "objects/" + id.substring(0, 2) + '/' + id.substring(2));
+        if (loose.isFile()) {
+            byte[] data;
+            try (var in = Files.newInputStream(loose.toPath())) {
+                data = inflate(in);
+            }
+            var nul = 0;
+            while (data[nul] != 0) {
+                nul++;
+            }
+            var content = new byte[data.length - nul - 1];
+            System.arraycopy(data, nul + 1, content, 0, content.length);
+            return content;
+        }
+
+        if (packIndexes_ == null) {
+            packIndexes_ = new File(commonDir_, "objects/pack").listFiles((dir, name) -> name.endsWith(".idx"));
+        }
+        var packs = packIndexes_;
+        if (packs != null) {
+            var sha = hexToBytes(id);
+            for (var idx : packs) {
+                var offset = findOffset(idx, sha);
+                if (offset >= 0) {
+                    var packName = idx.getName().substring(0, idx.getName().length() - 4) + ".pack";
+                    try (var pack = new RandomAccessFile(new File(idx.getParentFile(), packName), "r")) {
+                        return readPackedObject(pack, offset);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolves a reference, such as {@code refs/heads/main}, to an object id.
+     *
+     * @param ref the reference name
+     * @return the object id, or {@code null} if the reference does not exist
+     * @throws IOException if an I/O error occurs
+     */
+    String resolveRef(String ref) throws IOException {
+        for (var dir : new File[]{gitDir_, commonDir_}) {
+            var loose = new File(dir, ref);
+            if (loose.isFile()) {
+                var value = readString(loose);
+                return value.startsWith(REF_PREFIX) ? resolveRef(value.substring(REF_PREFIX.length()).trim()) : value;
+            }
+        }
+
+        var packedRefs = new File(commonDir_, "packed-refs");
+        if (packedRefs.isFile()) {
+            for (var line : Files.readAllLines(packedRefs.toPath(), StandardCharsets.UTF_8)) {
+                if (!line.isEmpty() && line.charAt(0) != '#' && line.charAt(0) != '^') {
+                    var space = line.indexOf(' ');
+                    if (space > 0 && line.substring(space + 1).equals(ref)) {
+                        return line.substring(0, space);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String blobId(byte[] content) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-1");
+            digest.update(("blob " + content.length + '\0').getBytes(StandardCharsets.US_ASCII));
+            return toHex(digest.digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Index readIndex(Path file) throws IOException {
+        var index = new Index();
+        index.mtime = Files.getLastModifiedTime(file).to(TimeUnit.NANOSECONDS);
+        var data = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (data.remaining() < 12 || data.getInt() != INDEX_SIGNATURE) {
+            throw new IOException("Invalid index file: " + file);
+        }
+        var version = data.getInt();
+        if (version < 2 || version > 4) {
+            throw new IOException("Unsupported index version: " + version);
+        }
+
+        var count = data.getInt();
+        var name = new byte[0];
+        var id = new byte[20];
+        for (var i = 0; i < count; i++) {
+            var start = data.position();
+            var entry = new IndexEntry();
+            data.position(start + 8); // ctime
+            entry.mtimeSeconds = data.getInt() & 0xffffffffL;
+            entry.mtimeNanos = data.getInt() & 0xffffffffL;
+            data.position(data.position() + 8); // dev, ino
+            entry.mode = data.getInt();
+            data.position(data.position() + 8); // uid, gid
+            entry.size = data.getInt() & 0xffffffffL;
+            data.get(id);
+            entry.id = toHex(id);
+            var flags = data.getShort() & 0xffff;
+            entry.stage = (flags >> 12) & 3;
+            if (version >= 3 && (flags & EXTENDED_FLAG) != 0) {
+                entry.skipWorktree = (data.getShort() & SKIP_WORKTREE_FLAG) != 0;
+            }
+
+            if (version == 4) {
+                // the name is prefix-compressed against the previous entry's, with no padding
+                var b = data.get() & 0xff;
+                long strip = b & 0x7f;
+                while ((b & 0x80) != 0) {
+                    b = data.get() & 0xff;
+                    strip = ((strip + 1) << 7) | (b & 0x7f);
+                }
+                var suffix = readNulTerminated(data);
+                var prefix = name.length - (int) strip;
+                name = Arrays.copyOf(name, prefix + suffix.length);
+                System.arraycopy(suffix, 0, name, prefix, suffix.length);
+            } else {
+                var nameStart = data.position();
+                name = readNulTerminated(data);
+                // entries are padded with 1 to 8 NUL bytes, to a multiple of 8
+                data.position(start + ((nameStart - start + name.length + 8) & ~7));
+            }
+            entry.path = new String(name, StandardCharsets.UTF_8);
+            index.entries.add(entry);
+        }
+
+        // only the root of the cached tree extension is needed
+        while (data.remaining() > 8 + 20) {
+            var signature = data.getInt();
+            var size = data.getInt();
+            var next = data.position() + size;
+            if (signature == TREE_EXTENSION && data.get() == 0) {
+                var entryCount = new String(readUntil(data, (byte) ' '), StandardCharsets.US_ASCII);
+                readUntil(data, (byte) '\n'); // subtrees
+                if (!entryCount.startsWith("-")) {
+                    data.get(id);
+                    index.tree = toHex(id);
+                }
+                break;
+            }
+            data.position(next);
+        }
+        return index;
+    }
+
+    private static byte[] readNulTerminated(ByteBuffer data) {
+        return readUntil(data, (byte) 0);
+    }
+
+    private static byte[] readUntil(ByteBuffer data, byte terminator) {
+        var start = data.position();
+        var end = start;
+        while (data.get(end) != terminator) {
+            end++;
+        }
+        var bytes = new byte[end - start];
+        data.get(bytes);
+        data.get(); // terminator
+        return bytes;
+    }
+
+    private static byte[] hexToBytes(String hex) {
+        var bytes = new byte[hex.length() / 2];
+        for (var i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+    private static long findOffset(File idx, byte[] sha) throws IOException {
+        try (var in = new RandomAccessFile(idx, "r")) {
+            if (in.readInt() != 0xff744f63 || in.readInt() != 2) {
+                return -1L; // only version 2 indexes are supported
+            }
+            var first = sha[0] & 0xff;
+            var lo = 0;
+            if (first > 0) {
+                in.seek(8 + (first - 1) * 4L);
+                lo = in.readInt();
+            }
+            in.seek(8 + first * 4L);
+            var hi = in.readInt();
+            in.seek(8 + 255 * 4L);
+            var count = in.readInt();
+            var tableStart = 8 + 256 * 4L;
+
+            var current = new byte[20];
+            while (lo < hi) {
+                var mid = (lo + hi) >>> 1;
+                in.seek(tableStart + mid * 20L);
+                in.readFully(current);
+                var cmp = Arrays.compareUnsigned(current, sha);
+                if (cmp < 0) {
+                    lo = mid + 1;
+                } else if (cmp > 0) {
+                    hi = mid;
+                } else {
+                    var offsetsStart = tableStart + count * 24L;
+                    in.seek(offsetsStart + mid * 4L);
+                    var offset = in.readInt() & 0xffffffffL;
+                    if ((offset & 0x80000000L) != 0) {
+                        in.seek(offsetsStart + count * 4L + (offset & 0x7fffffffL) * 8);
+                        offset = in.readLong();
+                    }
+                    return offset;
+                }
+            }
+        }
+        return -1L;
+    }
+
+    private String headTree() throws IOException {
+        var head = head();
+        if (head == null) {
+            return null;
+        }
+        var commit = readObject(head);
+        if (commit == null) {
+            throw new IOException("Missing commit object: " + head);
+        }
+        var content = new String(commit, StandardCharsets.UTF_8);
+        if (!content.startsWith("tree ")) {
+            throw new IOException("Invalid commit object: " + head);
+        }
+        return content.substring("tree ".length(), "tree ".length() + 40);
+    }
+
+    private boolean isModified(IndexEntry entry, long indexMtime) throws IOException {
+        var file = new File(workTree_, entry.path).toPath();
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return true;
+        }
+
+        var symlink = (entry.mode & TYPE_MASK) == SYMLINK;
+        if (symlink ? !attrs.isSymbolicLink() : !attrs.isRegularFile()) {
+            return true;
+        }
+        if (!symlink) {
+            if ((attrs.size() & 0xffffffffL) != entry.size) {
+                return true;
+            }
+            // files modified at or after the index was written are racily clean, and must be hashed
+            var mtime = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+            if (mtime < indexMtime && Math.floorDiv(mtime, 1_000_000_000L) == entry.mtimeSeconds
+                    && (entry.mtimeNanos == 0 || Math.floorMod(mtime, 1_000_000_000L) == entry.mtimeNanos)) {
+                return false;
+            }
+        }
+
+        var content = symlink
+                ? Files.readSymbolicLink(file).toString().replace(File.separatorChar, '/')
+                .getBytes(StandardCharsets.UTF_8)
+                : Files.readAllBytes(file);
+        return !blobId(content).equals(entry.id);
+    }
+
+    private void readTree(String id, String prefix, Map<String, String> entries) throws IOException {
+        var tree = readObject(id);
+        if (tree == null) {
+            throw new IOException("Missing tree object: " + id);
+        }
+        var pos = 0;
+        while (pos < tree.length) {
+            var space = pos;
+            while (tree[space] != ' ') {
+                space++;
+            }
+            var nul = space + 1;
+            while (tree[nul] != 0) {
+                nul++;
+            }
+            var mode = new String(tree, pos, space - pos, StandardCharsets.US_ASCII);
+            var path = prefix + new String(tree, space + 1, nul - space - 1, StandardCharsets.UTF_8);
+            var entryId = toHex(Arrays.copyOfRange(tree, nul + 1, nul + 21));
+            if ("40000".equals(mode)) {
+                readTree(entryId, path + '/', entries);
+            } else {
+                entries.put(path, entryId);
+            }
+            pos = nul + 21;
+        }
+    }
+
+    private byte[] readPackedObject(RandomAccessFile pack, long offset) throws IOException {
+        pack.seek(offset);
+        var b = pack.read();
+        var type = (b >> 4) & 7;
+        long size = b & 0x0f;
+        var shift = 4;
+        while ((b & 0x80) != 0) {
+            b = pack.read();
+            size |= (long) (b & 0x7f) << shift;
+            shift += 7;
+        }
+
+        if (type == OBJ_OFS_DELTA) {
+            b = pack.read();
+            long distance = b & 0x7f;
+            while ((b & 0x80) != 0) {
+                b = pack.read();
+                distance = ((distance + 1) << 7) | (b & 0x7f);
+            }
+            var dataStart = pack.getFilePointer();
+            var base = readPackedObject(pack, offset - distance);
+            return applyDelta(base, inflate(pack, dataStart, (int) size));
+        } else if (type == OBJ_REF_DELTA) {
+            var baseId = new byte[20];
+            pack.readFully(baseId);
+            var dataStart = pack.getFilePointer();
+            var delta = inflate(pack, dataStart, (int) size);
+            var base = readObject(toHex(baseId));
+            if (base == null) {
+                throw new IOException("Missing delta base object: " + toHex(baseId));
+            }
+            return applyDelta(base, delta);
+        }
+        return inflate(pack, pack.getFilePointer(), (int) size);
+    }
+
+    private static String toHex(byte[] bytes) {
+        var hex = new StringBuilder(bytes.length * 2);
+        for (var b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    private static final class Index {
+        private final List<IndexEntry> entries = new ArrayList<>();
+        private long mtime;
+        private String tree;
+    }
+
+    private static final class IndexEntry {
+        private String id;
+        private int mode;
+        private long mtimeNanos;
+        private long mtimeSeconds;
+        private String path;
+        private long size;
+        private boolean skipWorktree;
+        private int stage;
+    }
+}
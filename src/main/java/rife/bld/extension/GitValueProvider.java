@@ -0,0 +1,74 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Provides the {@code commit}, {@code shortCommit}, {@code branch}, {@code commitTime} and {@code dirty} values, read
+ * directly from the project's Git repository.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+final class GitValueProvider implements ValueProvider {
+    static final String BRANCH = "branch";
+    static final String COMMIT = "commit";
+    static final String COMMIT_TIME = "commitTime";
+    static final String DIRTY = "dirty";
+    static final String SHORT_COMMIT = "shortCommit";
+    private static final Set<String> VALUE_IDS = Set.of(BRANCH, COMMIT, COMMIT_TIME, DIRTY, SHORT_COMMIT);
+
+    @Override
+    public Set<String> valueIds() {
+        return VALUE_IDS;
+    }
+
+    @Override
+    public Map<String, ?> values(GeneratedVersion generatedVersion, Set<String> valueIds) throws IOException {
+        try {
+            var repository = GitRepository.find(generatedVersion.getProject().workDirectory());
+            var commit = repository != null ? repository.head() : null;
+            if (commit == null) {
+                commit = "";
+            }
+
+            var values = new HashMap<String, Object>();
+            if (valueIds.contains(COMMIT)) {
+                values.put(COMMIT, commit);
+            }
+            if (valueIds.contains(SHORT_COMMIT)) {
+                values.put(SHORT_COMMIT, commit.substring(0, Math.min(7, commit.length())));
+            }
+            if (valueIds.contains(BRANCH)) {
+                values.put(BRANCH, repository != null ? repository.branch() : "");
+            }
+            if (valueIds.contains(COMMIT_TIME)) {
+                values.put(COMMIT_TIME, commit.isEmpty() ? -1L : repository.commitTime());
+            }
+            if (valueIds.contains(DIRTY)) {
+                values.put(DIRTY, repository != null && repository.isDirty());
+            }
+            return values;
+        } catch (IOException e) {
+            throw new IOException("Unable to read the Git repository: " + e.getMessage(), e);
+        }
+    }
+}
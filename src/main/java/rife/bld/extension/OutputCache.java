@@ -0,0 +1,275 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A local cache of the output files, addressed by the {@link Fingerprint#cacheKey(GeneratedVersion) key} of their
+ * inputs, and shared by all the workspaces of the same machine.
+ * <p>
+ * Each entry is a directory named after its key, holding the output files in the order they are resolved. Entries are
+ * created and evicted by atomically renaming their directory, so that concurrent builds never observe a partial
+ * entry. The least recently used entries are evicted once the cache exceeds its maximum size.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+final class OutputCache {
+    /**
+     * The default maximum size of the cache, in bytes.
+     */
+    static final long DEFAULT_MAX_SIZE = 64L * 1024L * 1024L;
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+    private static final SecureRandom RANDOM = new SecureRandom();
+    // leftovers of interrupted builds, which are no longer being written
+    private static final long STALE_MILLIS = 60L * 60L * 1000L;
+
+    private OutputCache() {
+        // no-op
+    }
+
+    /**
+     * Looks up the entry of the given key, and marks it as recently used.
+     *
+     * @param directory the cache directory
+     * @param key       the cache key
+     * @param count     the number of output files
+     * @return the entry, or {@code null} if not cached
+     * @throws IOException if an I/O error occurs
+     */
+    static Entry lookup(Path directory, String key, int count) throws IOException {
+        var path = directory.resolve(key);
+        var contents = new byte[count][];
+        try {
+            for (var i = 0; i < count; i++) {
+                contents[i] = Files.readAllBytes(path.resolve(String.valueOf(i)));
+            }
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            // not cached, or evicted concurrently
+            return null;
+        }
+        return new Entry(path, contents);
+    }
+
+    /**
+     * Stores the given output files under the given key, unless already cached, then evicts the least recently used
+     * entries until the cache no longer exceeds the given size.
+     *
+     * @param directory the cache directory
+     * @param key       the cache key
+     * @param files     the output files
+     * @param maxSize   the maximum size of the cache, in bytes
+     * @throws IOException if an I/O error occurs
+     */
+    static void store(Path directory, String key, List<File> files, long maxSize) throws IOException {
+        var path = directory.resolve(key);
+        if (!Files.isDirectory(path)) {
+            Files.createDirectories(directory);
+            var temp = temp(directory, key);
+            Files.createDirectory(temp);
+            try {
+                for (var i = 0; i < files.size(); i++) {
+                    Files.copy(files.get(i).toPath(), temp.resolve(String.valueOf(i)));
+                }
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileSystemException e) {
+                // renaming over a non-empty directory is not always reported as a more specific exception
+                if (!Files.isDirectory(path)) {
+                    throw e;
+                }
+                // stored concurrently by another build
+            } finally {
+                delete(temp);
+            }
+        }
+        evict(directory, maxSize, key);
+    }
+
+    /**
+     * Evicts the least recently used entries, other than the given one, until the cache no longer exceeds the given
+     * size.
+     *
+     * @param directory the cache directory
+     * @param maxSize   the maximum size of the cache, in bytes
+     * @param keep      the key of the entry to keep
+     * @throws IOException if an I/O error occurs
+     */
+    static void evict(Path directory, long maxSize, String keep) throws IOException {
+        var entries = new ArrayList<Evictable>();
+        var total = 0L;
+        var now = System.currentTimeMillis();
+        try (var paths = Files.list(directory)) {
+            for (var path : (Iterable<Path>) paths::iterator) {
+                var name = path.getFileName().toString();
+                try {
+                    var lastUsed = Files.getLastModifiedTime(path).toMillis();
+                    if (KEY.matcher(name).matches()) {
+                        var size = size(path);
+                        total += size;
+                        if (!name.equals(keep)) {
+                            entries.add(new Evictable(path, size, lastUsed));
+                        }
+                    } else if (name.startsWith(".") && now - lastUsed > STALE_MILLIS) {
+                        delete(path);
+                    }
+                } catch (NoSuchFileException e) {
+                    // evicted concurrently
+                }
+            }
+        }
+
+        entries.sort(Comparator.comparingLong(entry -> entry.lastUsed_));
+        for (var entry : entries) {
+            if (total <= maxSize) {
+                break;
+            }
+            // moved aside first, so that the entry is never seen partially deleted
+            var temp = temp(directory, entry.path_.getFileName().toString());
+            try {
+                Files.move(entry.path_, temp, StandardCopyOption.ATOMIC_MOVE);
+            } catch (NoSuchFileException e) {
+                continue;
+            } catch (AtomicMoveNotSupportedException e) {
+                temp = entry.path_;
+            }
+            delete(temp);
+            total -= entry.size_;
+        }
+    }
+
+    /**
+     * Restores a cached file over the given target, as a hard link when possible and requested, or as a copy.
+     *
+     * @param cached  the cached file
+     * @param content the cached file's content
+     * @param target  the target file
+     * @param link    whether to hard link the cached file
+     * @param sync    whether the copy, and its directory entry, are flushed to the storage device
+     * @return {@code true} if the target was written, {@code false} if it already had the same content
+     * @throws IOException if an I/O error occurs
+     */
+    static boolean restore(Path cached, byte[] content, File target, boolean link, boolean sync) throws IOException {
+        if (AtomicFiles.isUnchanged(content, target)) {
+            return false;
+        }
+        if (link) {
+            try {
+                AtomicFiles.link(cached, target.toPath());
+                return true;
+            } catch (IOException | UnsupportedOperationException e) {
+                // not supported, on another file system, or evicted concurrently: copy the content instead
+            }
+        }
+        AtomicFiles.write(target.toPath(), content, sync);
+        return true;
+    }
+
+    private static long size(Path entry) throws IOException {
+        try (var files = Files.list(entry)) {
+            return files.mapToLong(file -> {
+                try {
+                    return Files.size(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).sum();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Path temp(Path directory, String name) {
+        var bytes = new byte[8];
+        RANDOM.nextBytes(bytes);
+        return directory.resolve('.' + name + '.' + HexFormat.of().formatHex(bytes) + ".tmp");
+    }
+
+    private static void delete(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (var files = Files.list(path)) {
+                for (var file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (NoSuchFileException e) {
+                return;
+            }
+        }
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * A cached entry.
+     */
+    static final class Entry {
+        private final byte[][] contents_;
+        private final Path path_;
+
+        Entry(Path path, byte[][] contents) {
+            path_ = path;
+            contents_ = contents;
+        }
+
+        /**
+         * Returns the content of the given cached file.
+         *
+         * @param index the index of the output file
+         * @return the content
+         */
+        byte[] content(int index) {
+            return contents_[index];
+        }
+
+        /**
+         * Returns the location of the given cached file.
+         *
+         * @param index the index of the output file
+         * @return the cached file
+         */
+        Path file(int index) {
+            return path_.resolve(String.valueOf(index));
+        }
+    }
+
+    private static final class Evictable {
+        private final long lastUsed_;
+        private final Path path_;
+        private final long size_;
+
+        Evictable(Path path, long size, long lastUsed) {
+            path_ = path;
+            size_ = size;
+            lastUsed_ = lastUsed;
+        }
+    }
+}
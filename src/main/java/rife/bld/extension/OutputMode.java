@@ -0,0 +1,43 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+/**
+ * The kind of output generated by the {@link GeneratedVersionOperation}.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+public enum OutputMode {
+    /**
+     * Renders the template to a source file, to be compiled with the project. This is the default.
+     */
+    SOURCE,
+    /**
+     * Writes a ready-to-use {@code .class} file, with the same fields as the default template, in the classes
+     * directory. The generated class does not need to be compiled, and custom templates are not supported.
+     */
+    CLASS,
+    /**
+     * Writes the version information to a properties resource in the resources directory, along with an accessor
+     * class source that loads it on first access.
+     * <p>
+     * The accessor class does not change when the version does, so a version bump does not require recompiling
+     * anything. Custom templates are not supported.
+     */
+    PROPERTIES
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Records the time spent in each phase of the generation.
+ * <p>
+ * Timings are accumulated per phase, in the order the phases were first recorded, until {@link #clear() cleared}.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+public final class PhaseTimings {
+    /**
+     * Looking up, restoring and storing the outputs in the output cache.
+     */
+    public static final String CACHE = "cache";
+    /**
+     * Creating the output directories.
+     */
+    public static final String DIRECTORIES = "directories";
+    /**
+     * Computing and comparing the fingerprint of the inputs.
+     */
+    public static final String FINGERPRINT = "fingerprint";
+    /**
+     * Rendering the output content, including streaming it to a staged file.
+     */
+    public static final String RENDER = "render";
+    /**
+     * Comparing the output content with the existing file, when left unchanged.
+     */
+    public static final String SKIP = "skip";
+    /**
+     * Looking up and compiling the template.
+     */
+    public static final String TEMPLATE = "template";
+    /**
+     * Computing and setting the template values.
+     */
+    public static final String VALUES = "values";
+    /**
+     * Comparing the output content with the existing file, and writing it.
+     */
+    public static final String WRITE = "write";
+    private final Map<String, Long> nanos_ = new LinkedHashMap<>();
+
+    /**
+     * Removes all the recorded timings.
+     */
+    public synchronized void clear() {
+        nanos_.clear();
+    }
+
+    /**
+     * Returns the time spent in each phase.
+     *
+     * @return the timings, by phase
+     */
+    public synchronized Map<String, Duration> phases() {
+        var phases = new LinkedHashMap<String, Duration>();
+        nanos_.forEach((phase, nanos) -> phases.put(phase, Duration.ofNanos(nanos)));
+        return Collections.unmodifiableMap(phases);
+    }
+
+    /**
+     * Adds the time elapsed since the given start time to the given phase.
+     *
+     * @param phase the phase
+     * @param start the start time, as returned by {@link System#nanoTime()}
+     */
+    public synchronized void record(String phase, long start) {
+        nanos_.merge(phase, System.nanoTime() - start, Long::sum);
+    }
+
+    /**
+     * Returns the timings as a JSON object, in milliseconds.
+     *
+     * @return the JSON representation
+     */
+    public synchronized String toJson() {
+        var json = new StringBuilder("{\"phases\":{");
+        var first = true;
+        for (var entry : nanos_.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append('"').append(entry.getKey()).append("\":").append(millis(entry.getValue()));
+        }
+        return json.append("},\"total\":").append(millis(totalNanos())).append(",\"unit\":\"ms\"}").toString();
+    }
+
+    /**
+     * Returns the total time spent in all phases.
+     *
+     * @return the total time
+     */
+    public synchronized Duration total() {
+        return Duration.ofNanos(totalNanos());
+    }
+
+    @Override
+    public synchronized String toString() {
+        var text = new StringBuilder();
+        nanos_.forEach((phase, nanos) -> text.append(phase).append('=').append(millis(nanos)).append("ms "));
+        return text.append("total=").append(millis(totalNanos())).append("ms").toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    private long totalNanos() {
+        return nanos_.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
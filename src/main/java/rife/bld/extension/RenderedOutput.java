@@ -0,0 +1,122 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The content of a file rendered in memory, along with its path relative to its target directory.
+ * <p>
+ * Text files are encoded in UTF-8, and their line separators normalized to {@code \n}.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ * @see GeneratedVersionOperation#render()
+ */
+public final class RenderedOutput {
+    private final byte[] content_;
+    private final String path_;
+
+    RenderedOutput(String path, byte[] content) {
+        path_ = path;
+        content_ = content;
+    }
+
+    /**
+     * Creates a rendered text file.
+     *
+     * @param path the relative path
+     * @param text the text, with any line separators
+     * @return the rendered output
+     */
+    static RenderedOutput text(String path, CharSequence text) {
+        var normalized = new StringBuilder(text.length());
+        for (var i = 0; i < text.length(); i++) {
+            var c = text.charAt(i);
+            if (c == '\r') {
+                normalized.append('\n');
+                if (i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+            } else {
+                normalized.append(c);
+            }
+        }
+        return new RenderedOutput(path, normalized.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns a read-only view of the content, without copying it.
+     *
+     * @return the content
+     */
+    public ByteBuffer buffer() {
+        return ByteBuffer.wrap(content_).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a copy of the content.
+     *
+     * @return the content
+     */
+    public byte[] bytes() {
+        return Arrays.copyOf(content_, content_.length);
+    }
+
+    /**
+     * Returns the path of the file, relative to its target directory, using {@code /} as the separator, such as
+     * {@code com/example/GeneratedVersion.java}.
+     *
+     * @return the relative path
+     */
+    public String path() {
+        return path_;
+    }
+
+    /**
+     * Returns the size of the content.
+     *
+     * @return the size, in bytes
+     */
+    public int size() {
+        return content_.length;
+    }
+
+    /**
+     * Returns the content decoded as UTF-8.
+     *
+     * @return the content
+     */
+    @Override
+    public String toString() {
+        return new String(content_, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the content to the given stream.
+     *
+     * @param out the output stream
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(content_);
+    }
+}
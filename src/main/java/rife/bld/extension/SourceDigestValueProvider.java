@@ -0,0 +1,282 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides the {@code sourceDigest} value, a SHA-256 digest of the project's main Java sources and resources.
+ * <p>
+ * The directories are walked in parallel on the common fork-join pool, and large files are memory-mapped. The hash of
+ * each file is kept in an index, in the project's build directory, keyed by its path, size and last modified time, so
+ * that only the files that changed since the previous build are read again. The index is not updated when rendering in
+ * memory.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+final class SourceDigestValueProvider implements ValueProvider {
+    /**
+     * The name of the index file, in the fingerprints directory.
+     */
+    static final String INDEX = "source-digest.index";
+    static final String SOURCE_DIGEST = "sourceDigest";
+    private static final String FORMAT = "1";
+    // smaller files are cheaper to read than to map
+    private static final long MAP_THRESHOLD = 64 * 1024L;
+    private static final long MAP_CHUNK = 64 * 1024 * 1024L;
+    // files modified this recently may change again within the file system's timestamp granularity
+    private static final long RACY_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final Set<String> VALUE_IDS = Set.of(SOURCE_DIGEST);
+
+    @Override
+    public Set<String> valueIds() {
+        return VALUE_IDS;
+    }
+
+    @Override
+    public Map<String, ?> values(GeneratedVersion generatedVersion, Set<String> valueIds) throws IOException {
+        var project = generatedVersion.getProject();
+        var indexFile = new File(new File(project.buildDirectory(), Fingerprint.DIRECTORY), INDEX).toPath();
+        var excluded = new HashSet<Path>();
+        for (var file : generatedVersion.resolveOutputFiles()) {
+            excluded.add(file.getAbsoluteFile().toPath());
+        }
+
+        var index = readIndex(indexFile);
+        var scan = new Scan(index, excluded, System.currentTimeMillis());
+        try {
+            ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(new Walk(scan, project.srcMainJavaDirectory().toPath(), "java"),
+                            new Walk(scan, project.srcMainResourcesDirectory().toPath(), "resources"));
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // the exception may be rethrown by the pool as a copy, wrapping the original
+            Throwable cause = e;
+            while (cause instanceof UncheckedIOException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            throw new IOException("Unable to compute the source digest: " + cause.getMessage(), cause);
+        }
+
+        // the digest only depends on the relative names and contents, in a stable order
+        var sorted = new TreeMap<String, Entry>();
+        for (var entry : scan.entries.values()) {
+            sorted.put(entry.name, entry);
+        }
+        var digest = AtomicFiles.sha256();
+        for (var entry : sorted.values()) {
+            digest.update(entry.name.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(entry.hash);
+        }
+
+        // the index is only read when rendering in memory, which writes no file
+        if (!generatedVersion.isInMemory() && (scan.changed || index.size() != scan.entries.size())) {
+            writeIndex(indexFile, scan);
+        }
+
+        var values = new HashMap<String, Object>();
+        values.put(SOURCE_DIGEST, HexFormat.of().formatHex(digest.digest()));
+        return values;
+    }
+
+    private static byte[] hash(Path file, long size) throws IOException {
+        var digest = AtomicFiles.sha256();
+        if (size < MAP_THRESHOLD) {
+            digest.update(Files.readAllBytes(file));
+        } else {
+            try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                var length = channel.size();
+                for (var position = 0L; position < length; position += MAP_CHUNK) {
+                    ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(MAP_CHUNK, length - position));
+                    digest.update(buffer);
+                }
+            }
+        }
+        return digest.digest();
+    }
+
+    // entries are: hash, size, modified time in nanoseconds, relative name and absolute path, separated by tabs
+    private static Map<String, Entry> readIndex(Path indexFile) {
+        var index = new HashMap<String, Entry>();
+        try {
+            if (!Files.isRegularFile(indexFile)) {
+                return index;
+            }
+            var lines = Files.readAllLines(indexFile, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !FORMAT.equals(lines.get(0))) {
+                return index;
+            }
+            for (var i = 1; i < lines.size(); i++) {
+                var fields = lines.get(i).split("\t", 5);
+                if (fields.length == 5) {
+                    index.put(fields[4], new Entry(fields[3], HexFormat.of().parseHex(fields[0]),
+                            Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // a missing or corrupt index only means that all the files are hashed again
+            index.clear();
+        }
+        return index;
+    }
+
+    private static void writeIndex(Path indexFile, Scan scan) throws IOException {
+        var racy = TimeUnit.MILLISECONDS.toNanos(scan.started) - RACY_NANOS;
+        var content = new StringBuilder(FORMAT).append('\n');
+        for (var entry : new TreeMap<>(scan.entries).entrySet()) {
+            var value = entry.getValue();
+            if (value.modified < racy) {
+                content.append(HexFormat.of().formatHex(value.hash)).append('\t').append(value.size).append('\t')
+                        .append(value.modified).append('\t').append(value.name).append('\t').append(entry.getKey())
+                        .append('\n');
+            }
+        }
+        Files.createDirectories(indexFile.getParent());
+        AtomicFiles.write(indexFile, content.toString().getBytes(StandardCharsets.UTF_8), false);
+    }
+
+    private static final class Entry {
+        private final byte[] hash;
+        private final long modified;
+        private final String name;
+        private final long size;
+
+        Entry(String name, byte[] hash, long size, long modified) {
+            this.name = name;
+            this.hash = hash;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+
+    private static final class Scan {
+        private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        private final Set<Path> excluded;
+        private final Map<String, Entry> index;
+        private final long started;
+        private volatile boolean changed;
+
+        Scan(Map<String, Entry> index, Set<Path> excluded, long started) {
+            this.index = index;
+            this.excluded = excluded;
+            this.started = started;
+        }
+    }
+
+    private static final class Walk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient Path directory;
+        private final String name;
+        private final transient Scan scan;
+
+        Walk(Scan scan, Path directory, String name) {
+            this.scan = scan;
+            this.directory = directory;
+            this.name = name;
+        }
+
+        @Override
+        protected void compute() {
+            if (!Files.isDirectory(directory)) {
+                return;
+            }
+            var tasks = new ArrayList<RecursiveAction>();
+            try (var children = Files.newDirectoryStream(directory)) {
+                for (var child : children) {
+                    var childName = name + '/' + child.getFileName();
+                    var attrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if (attrs.isSymbolicLink()) {
+                        // linked directories are not followed, to avoid cycles
+                        attrs = Files.readAttributes(child, BasicFileAttributes.class);
+                        if (!attrs.isRegularFile()) {
+                            continue;
+                        }
+                    }
+                    if (attrs.isDirectory()) {
+                        tasks.add(new Walk(scan, child, childName));
+                    } else if (attrs.isRegularFile() && !scan.excluded.contains(child.toAbsolutePath())) {
+                        tasks.add(new Hash(scan, child, childName, attrs));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    private static final class Hash extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient BasicFileAttributes attrs;
+        private final transient Path file;
+        private final String name;
+        private final transient Scan scan;
+
+        Hash(Scan scan, Path file, String name, BasicFileAttributes attrs) {
+            this.scan = scan;
+            this.file = file;
+            this.name = name;
+            this.attrs = attrs;
+        }
+
+        @Override
+        protected void compute() {
+            var key = file.toAbsolutePath().toString();
+            var size = attrs.size();
+            var modified = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+            var cached = scan.index.get(key);
+            if (cached != null && cached.size == size && cached.modified == modified && cached.name.equals(name)) {
+                scan.entries.put(key, cached);
+                return;
+            }
+            try {
+                scan.entries.put(key, new Entry(name, hash(file, size), size, modified));
+                scan.changed = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
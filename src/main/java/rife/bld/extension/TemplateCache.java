@@ -0,0 +1,232 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import rife.resources.ResourceFinderDirectories;
+import rife.resources.ResourceFinderGroup;
+import rife.template.Template;
+import rife.template.TemplateFactory;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Caches compiled templates for the lifetime of the JVM.
+ * <p>
+ * Templates are keyed by their location, and recompiled only when a template file's last modified time or size
+ * changes. Each lookup returns a fresh clone of the pristine cached template, so values set on it are never shared.
+ * <p>
+ * The shared {@link TemplateFactory#TXT} factory is never modified. Each custom template is compiled by its own
+ * factory, with its own resource finder and class loader, so neither this extension nor any other user of the shared
+ * factory can observe the other's templates. Cache hits and rendering do not touch any factory, so many operations can
+ * safely build and render templates concurrently.
+ * <p>
+ * The built-in templates are precompiled when the extension is built, and their pristine instances are created from
+ * the precompiled classes once per JVM, through the shared factory's default classpath resource finder.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+final class TemplateCache {
+    /**
+     * The name of the template holding the blocks included by the built-in class templates.
+     */
+    static final String BLOCKS_TEMPLATE = "default_generated_version_blocks";
+    /**
+     * The name of the default template.
+     */
+    static final String DEFAULT_TEMPLATE = "default_generated_version";
+    /**
+     * The name of the startup-optimized template.
+     */
+    static final String FAST_STARTUP_TEMPLATE = "default_generated_version_fast_startup";
+    /**
+     * The name of the properties accessor template.
+     */
+    static final String PROPERTIES_TEMPLATE = "default_generated_version_properties";
+    /**
+     * The name of the version registry template.
+     */
+    static final String REGISTRY_TEMPLATE = "default_generated_version_registry";
+    private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+    // the identifier of the factories compiling custom templates, distinct from the shared factory's
+    private static final String FACTORY_IDENTIFIER = "generatedversiontxt";
+    private static final Object LOCK = new Object();
+
+    private TemplateCache() {
+        // no-op
+    }
+
+    /**
+     * Removes all cached templates.
+     */
+    static void clear() {
+        ENTRIES.clear();
+    }
+
+    /**
+     * Returns the given built-in template, compiling it only if it is not cached.
+     *
+     * @param name the name of the template, in the {@code templates} classpath directory
+     * @return a new instance of the template
+     */
+    static Template builtIn(String name) {
+        return lookup("classpath:" + name, 0L, 0L, () -> compileBuiltIn(name));
+    }
+
+    /**
+     * Returns the given built-in template, either cached or compiled.
+     *
+     * @param name  the name of the template, in the {@code templates} classpath directory
+     * @param cache {@code true} to use the cache, {@code false} to bypass it
+     * @return a new instance of the template
+     */
+    static Template builtIn(String name, boolean cache) {
+        return cache ? builtIn(name) : compileBuiltIn(name);
+    }
+
+    /**
+     * Returns the name of the template to load from the classpath when the given generated version's resolved
+     * template is {@code null}.
+     *
+     * @param generatedVersion the generated version
+     * @return the template name
+     */
+    static String builtInName(GeneratedVersion generatedVersion) {
+        return generatedVersion.getTemplateName() != null ? generatedVersion.getTemplateName()
+                : generatedVersion.getBuiltInTemplate().templateName();
+    }
+
+    /**
+     * Compiles the given template, bypassing the cache.
+     *
+     * @param template the template file, or {@code null} for the default template
+     * @return the template
+     */
+    @SuppressFBWarnings("PATH_TRAVERSAL_IN")
+    static Template compile(File template) {
+        if (template == null) {
+            return compileBuiltIn(DEFAULT_TEMPLATE);
+        }
+        var parent = template.getParentFile();
+        if (parent == null) {
+            parent = new File(template.getAbsolutePath()).getParentFile();
+        }
+        var group = new ResourceFinderGroup().add(new ResourceFinderDirectories(parent));
+        return new TemplateFactory(FACTORY_IDENTIFIER, TemplateFactory.TXT).setResourceFinder(group)
+                .get(template.getName());
+    }
+
+    /**
+     * Returns the given built-in template, bypassing the cache.
+     * <p>
+     * The shared factory's class loader delegates to the extension's class loader, which returns the class precompiled
+     * at build time, if any. The template is only compiled at runtime when it is not precompiled, such as when running
+     * from the sources.
+     *
+     * @param name the name of the template, in the {@code templates} classpath directory
+     * @return the template
+     */
+    static Template compileBuiltIn(String name) {
+        return TemplateFactory.TXT.get(name);
+    }
+
+    /**
+     * Returns the given template, compiling it only if it is not cached or has changed since it was cached.
+     *
+     * @param template the template file, or {@code null} for the default template
+     * @return a new instance of the template
+     */
+    static Template get(File template) {
+        if (template == null) {
+            return builtIn(DEFAULT_TEMPLATE);
+        }
+        return lookup("file:" + template.getAbsolutePath(), template.lastModified(), template.length(),
+                () -> compile(template));
+    }
+
+    /**
+     * Returns a new instance of the given template, or of the generated version's built-in template, either cached or
+     * compiled, according to the generated version's settings.
+     *
+     * @param generatedVersion the generated version
+     * @param template         the template file, or {@code null} for the built-in template
+     * @return the template
+     * @see GeneratedVersion#setCacheTemplate(boolean)
+     */
+    static Template load(GeneratedVersion generatedVersion, File template) {
+        var cache = generatedVersion.isCacheTemplate();
+        if (template != null) {
+            return cache ? get(template) : compile(template);
+        }
+        return builtIn(builtInName(generatedVersion), cache);
+    }
+
+    /**
+     * Resolves the template file of the given generated version, either set directly or found by name in its
+     * template directories.
+     *
+     * @param generatedVersion the generated version
+     * @return the template file, or {@code null} for a template on the classpath
+     * @throws IllegalArgumentException if the named template could not be found
+     */
+    static File resolve(GeneratedVersion generatedVersion) {
+        var template = generatedVersion.getTemplate();
+        var templateName = generatedVersion.getTemplateName();
+        if (template != null || templateName == null) {
+            return template;
+        }
+        return TemplateSearchPath.resolve(generatedVersion.getTemplateDirectories(), templateName);
+    }
+
+    private static Template lookup(String key, long lastModified, long length, Supplier<Template> compiler) {
+        var entry = ENTRIES.get(key);
+        if (entry == null || entry.isStale(lastModified, length)) {
+            synchronized (LOCK) {
+                // another thread may have compiled it while waiting for the lock
+                entry = ENTRIES.get(key);
+                if (entry == null || entry.isStale(lastModified, length)) {
+                    entry = new Entry(compiler.get(), lastModified, length);
+                    ENTRIES.put(key, entry);
+                }
+            }
+        }
+        return entry.template.clone();
+    }
+
+    /**
+     * Holds a pristine compiled template and the file state it was compiled from.
+     */
+    private static final class Entry {
+        private final long lastModified;
+        private final long length;
+        private final Template template;
+
+        Entry(Template template, long lastModified, long length) {
+            this.template = template;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        boolean isStale(long lastModified, long length) {
+            return this.lastModified != lastModified || this.length != length;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves template names against an ordered list of directories, followed by the {@code templates} directory of the
+ * classpath, which includes the jars on the bld classpath.
+ * <p>
+ * Resolutions are memoized for the lifetime of the JVM, along with the last modified times of the directories that
+ * were searched. These are the directories that would hold the template, which are subdirectories of the search
+ * directories when the name contains a {@code /}. Adding or removing a template in any of them changes its last
+ * modified time, which invalidates the resolution.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+final class TemplateSearchPath {
+    /**
+     * The template files extension.
+     */
+    static final String EXTENSION = ".txt";
+    // directories modified this recently may change again within the file system's timestamp granularity
+    private static final long RACY_MILLIS = 2000L;
+    private static final Map<String, Resolution> RESOLUTIONS = new ConcurrentHashMap<>();
+
+    private TemplateSearchPath() {
+        // no-op
+    }
+
+    /**
+     * Removes all memoized resolutions.
+     */
+    static void clear() {
+        RESOLUTIONS.clear();
+    }
+
+    /**
+     * Resolves the given template name.
+     *
+     * @param directories the directories to search, in order
+     * @param name        the template name, without its {@value #EXTENSION} extension
+     * @return the template file, or {@code null} if the template was found on the classpath
+     * @throws IllegalArgumentException if the template could not be found
+     */
+    static File resolve(List<File> directories, String name) {
+        var key = new StringBuilder(name);
+        for (var directory : directories) {
+            key.append(File.pathSeparatorChar).append(directory.getAbsolutePath());
+        }
+
+        var resolution = RESOLUTIONS.get(key.toString());
+        if (resolution == null || !resolution.isValid()) {
+            resolution = search(directories, name);
+            if (resolution.isCacheable()) {
+                RESOLUTIONS.put(key.toString(), resolution);
+            } else {
+                RESOLUTIONS.remove(key.toString());
+            }
+        }
+
+        if (!resolution.found) {
+            throw new IllegalArgumentException("Unable to find the template: " + name + EXTENSION);
+        }
+        return resolution.file;
+    }
+
+    /**
+     * Returns the directories that would hold the given template, in search order.
+     *
+     * @param directories the directories to search, in order
+     * @param name        the template name, without its {@value #EXTENSION} extension
+     * @return the template directories
+     */
+    static List<File> templateDirectories(List<File> directories, String name) {
+        var templateDirectories = new ArrayList<File>(directories.size());
+        for (var directory : directories) {
+            templateDirectories.add(new File(directory, name + EXTENSION).getParentFile());
+        }
+        return templateDirectories;
+    }
+
+    private static Resolution search(List<File> directories, String name) {
+        var searched = new File[directories.size()];
+        var modified = new long[directories.size()];
+        for (var i = 0; i < searched.length; i++) {
+            // read the directory's time first, so that a template added while searching invalidates the resolution
+            var file = new File(directories.get(i), name + EXTENSION);
+            searched[i] = file.getParentFile();
+            modified[i] = searched[i].lastModified();
+            if (file.isFile()) {
+                return new Resolution(file, true, searched, modified, i + 1);
+            }
+        }
+        var found = TemplateSearchPath.class.getClassLoader().getResource("templates/" + name + EXTENSION) != null;
+        return new Resolution(null, found, searched, modified, searched.length);
+    }
+
+    /**
+     * Holds the location of a template and the state of the directories searched to find it.
+     */
+    private static final class Resolution {
+        private final int count;
+        private final File file;
+        private final boolean found;
+        private final long[] modified;
+        private final File[] searched;
+
+        Resolution(File file, boolean found, File[] searched, long[] modified, int count) {
+            this.file = file;
+            this.found = found;
+            this.searched = searched;
+            this.modified = modified;
+            this.count = count;
+        }
+
+        boolean isCacheable() {
+            var racy = System.currentTimeMillis() - RACY_MILLIS;
+            for (var i = 0; i < count; i++) {
+                if (modified[i] >= racy) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isValid() {
+            for (var i = 0; i < count; i++) {
+                if (searched[i].lastModified() != modified[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Provides additional template values, such as a host name or a CI build number.
+ * <p>
+ * A provider is only invoked when the template references at least one of its value ids, and only for those ids.
+ * Providers needed by the same template are invoked concurrently, and their values are memoized until
+ * {@link GeneratedVersion#clearValues() cleared}, which the operations do at the start of each execution.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+public interface ValueProvider {
+    /**
+     * Creates a provider for a single value.
+     *
+     * @param valueId the value id
+     * @param value   computes the value
+     * @return the provider
+     */
+    static ValueProvider of(String valueId, Callable<?> value) {
+        return new ValueProvider() {
+            @Override
+            public Set<String> valueIds() {
+                return Set.of(valueId);
+            }
+
+            @Override
+            public Map<String, ?> values(GeneratedVersion generatedVersion, Set<String> valueIds) throws Exception {
+                return Collections.singletonMap(valueId, value.call());
+            }
+        };
+    }
+
+    /**
+     * Returns the ids of the values supplied by this provider.
+     *
+     * @return the value ids
+     */
+    Set<String> valueIds();
+
+    /**
+     * Computes the requested values.
+     *
+     * @param generatedVersion the generated version
+     * @param valueIds         the ids of the values referenced by the template, a subset of {@link #valueIds()}
+     * @return the values, by id
+     * @throws Exception if the values could not be computed
+     */
+    Map<String, ?> values(GeneratedVersion generatedVersion, Set<String> valueIds) throws Exception;
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the bytecode of a version class with the same fields as the default template, so that it does not need to be
+ * compiled by {@code javac}.
+ * <p>
+ * The generated class targets Java 8 bytecode. Its methods have no branches, so no stack map frames are required.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+final class VersionClassWriter {
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int CLASS_VERSION = 52;
+    private static final String CODE = "Code";
+    private static final String CONSTANT_VALUE = "ConstantValue";
+    private static final String DATE = "java/util/Date";
+    private static final String INIT = "<init>";
+    private static final String STRING = "Ljava/lang/String;";
+    private final Map<String, Integer> constants_ = new HashMap<>();
+    private final List<Field> fields_ = new ArrayList<>();
+    private final ByteArrayOutputStream pool_ = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut_ = new DataOutputStream(pool_);
+    private final String internalName_;
+    private long epoch_;
+    private int poolCount_ = 1;
+
+    /**
+     * Creates a new writer.
+     *
+     * @param packageName the package name, may be empty
+     * @param className   the class name
+     */
+    VersionClassWriter(String packageName, String className) {
+        internalName_ = packageName == null || packageName.isEmpty()
+                ? className : packageName.replace('.', '/') + '/' + className;
+    }
+
+    /**
+     * Sets the build date.
+     *
+     * @param epoch the build time, in milliseconds since the epoch
+     * @return this writer
+     */
+    VersionClassWriter buildDate(long epoch) {
+        epoch_ = epoch;
+        return this;
+    }
+
+    /**
+     * Adds a {@code public static final int} constant.
+     *
+     * @param name  the field name
+     * @param value the value
+     * @return this writer
+     */
+    VersionClassWriter constant(String name, int value) {
+        fields_.add(new Field(name, "I", integer(value)));
+        return this;
+    }
+
+    /**
+     * Adds a {@code public static final long} constant.
+     *
+     * @param name  the field name
+     * @param value the value
+     * @return this writer
+     */
+    VersionClassWriter constant(String name, long value) {
+        fields_.add(new Field(name, "J", longValue(value)));
+        return this;
+    }
+
+    /**
+     * Adds a {@code public static final String} constant.
+     *
+     * @param name  the field name
+     * @param value the value
+     * @return this writer
+     */
+    VersionClassWriter constant(String name, String value) {
+        fields_.add(new Field(name, STRING, string(value)));
+        return this;
+    }
+
+    /**
+     * Returns the bytecode of the class.
+     *
+     * @return the bytecode
+     */
+    byte[] toByteArray() {
+        try {
+            // resolve all the constants before writing the pool
+            var thisClass = classRef(internalName_);
+            var superClass = classRef("java/lang/Object");
+            var constantValue = utf8(CONSTANT_VALUE);
+            var code = utf8(CODE);
+            var constructor = constructor();
+            var staticInit = staticInitializer();
+            var buildDate = fieldNameAndType("BUILD_DATE", 'L' + DATE + ';');
+            var constructorName = utf8(INIT);
+            var constructorDesc = utf8("()V");
+            var clinitName = utf8("<clinit>");
+
+            var bytes = new ByteArrayOutputStream();
+            var out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_VERSION);
+            out.writeShort(poolCount_);
+            poolOut_.flush();
+            pool_.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0); // interfaces
+
+            out.writeShort(fields_.size() + 1);
+            out.writeShort(ACC_PUBLIC | ACC_STATIC | ACC_FINAL);
+            out.writeShort(buildDate[0]);
+            out.writeShort(buildDate[1]);
+            out.writeShort(0);
+            for (var field : fields_) {
+                out.writeShort(ACC_PUBLIC | ACC_STATIC | ACC_FINAL);
+                out.writeShort(field.name);
+                out.writeShort(field.descriptor);
+                out.writeShort(1);
+                out.writeShort(constantValue);
+                out.writeInt(2);
+                out.writeShort(field.value);
+            }
+
+            out.writeShort(2); // methods
+            writeMethod(out, ACC_PRIVATE, constructorName, constructorDesc, code, 3, 1, constructor);
+            writeMethod(out, ACC_STATIC, clinitName, constructorDesc, code, 4, 0, staticInit);
+
+            out.writeShort(0); // attributes
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeMethod(DataOutputStream out, int access, int name, int descriptor, int code,
+                                    int maxStack, int maxLocals, byte[] bytecode) throws IOException {
+        out.writeShort(access);
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+        out.writeShort(code);
+        out.writeInt(12 + bytecode.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(bytecode.length);
+        out.write(bytecode);
+        out.writeShort(0); // exception table
+        out.writeShort(0); // attributes
+    }
+
+    private byte[] constructor() throws IOException {
+        var objectInit = methodRef("java/lang/Object", INIT, "()V");
+        var exception = classRef("java/lang/UnsupportedOperationException");
+        var message = string("Illegal constructor call.");
+        var exceptionInit = methodRef("java/lang/UnsupportedOperationException", INIT, "(" + STRING + ")V");
+
+        var bytes = new ByteArrayOutputStream();
+        var code = new DataOutputStream(bytes);
+        code.writeByte(0x2a); // aload_0
+        code.writeByte(0xb7); // invokespecial
+        code.writeShort(objectInit);
+        code.writeByte(0xbb); // new
+        code.writeShort(exception);
+        code.writeByte(0x59); // dup
+        code.writeByte(0x13); // ldc_w
+        code.writeShort(message);
+        code.writeByte(0xb7); // invokespecial
+        code.writeShort(exceptionInit);
+        code.writeByte(0xbf); // athrow
+        code.flush();
+        return bytes.toByteArray();
+    }
+
+    private byte[] staticInitializer() throws IOException {
+        var date = classRef(DATE);
+        var epoch = longValue(epoch_);
+        var dateInit = methodRef(DATE, INIT, "(J)V");
+        var buildDate = fieldRef("BUILD_DATE", 'L' + DATE + ';');
+
+        var bytes = new ByteArrayOutputStream();
+        var code = new DataOutputStream(bytes);
+        code.writeByte(0xbb); // new
+        code.writeShort(date);
+        code.writeByte(0x59); // dup
+        code.writeByte(0x14); // ldc2_w
+        code.writeShort(epoch);
+        code.writeByte(0xb7); // invokespecial
+        code.writeShort(dateInit);
+        code.writeByte(0xb3); // putstatic
+        code.writeShort(buildDate);
+        code.writeByte(0xb1); // return
+        code.flush();
+        return bytes.toByteArray();
+    }
+
+    private int constant(String key, int tag, int slots, byte[] info) {
+        return constants_.computeIfAbsent(key, k -> {
+            try {
+                poolOut_.writeByte(tag);
+                poolOut_.write(info);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            var index = poolCount_;
+            poolCount_ += slots;
+            return index;
+        });
+    }
+
+    private int utf8(String value) {
+        try {
+            var bytes = new ByteArrayOutputStream();
+            new DataOutputStream(bytes).writeUTF(value);
+            return constant("U:" + value, 1, 1, bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int integer(int value) {
+        return constant("I:" + value, 3, 1, new byte[]{
+                (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value});
+    }
+
+    private int longValue(long value) {
+        var info = new byte[8];
+        for (var i = 0; i < 8; i++) {
+            info[i] = (byte) (value >>> (56 - 8 * i));
+        }
+        return constant("J:" + value, 5, 2, info);
+    }
+
+    private int string(String value) {
+        return constant("S:" + value, 8, 1, u2(utf8(value)));
+    }
+
+    private int classRef(String internalName) {
+        return constant("C:" + internalName, 7, 1, u2(utf8(internalName)));
+    }
+
+    private int[] fieldNameAndType(String name, String descriptor) {
+        return new int[]{utf8(name), utf8(descriptor)};
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        var info = new byte[4];
+        System.arraycopy(u2(utf8(name)), 0, info, 0, 2);
+        System.arraycopy(u2(utf8(descriptor)), 0, info, 2, 2);
+        return constant("N:" + name + ':' + descriptor, 12, 1, info);
+    }
+
+    private int fieldRef(String name, String descriptor) {
+        return memberRef(9, internalName_, name, descriptor);
+    }
+
+    private int methodRef(String owner, String name, String descriptor) {
+        return memberRef(10, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        var info = new byte[4];
+        System.arraycopy(u2(classRef(owner)), 0, info, 0, 2);
+        System.arraycopy(u2(nameAndType(name, descriptor)), 0, info, 2, 2);
+        return constant(tag + ":" + owner + '.' + name + ':' + descriptor, tag, 1, info);
+    }
+
+    private static byte[] u2(int value) {
+        return new byte[]{(byte) (value >>> 8), (byte) value};
+    }
+
+    private final class Field {
+        private final int descriptor;
+        private final int name;
+        private final int value;
+
+        Field(String name, String descriptor, int value) {
+            this.name = utf8(name);
+            this.descriptor = utf8(descriptor);
+            this.value = value;
+        }
+    }
+}
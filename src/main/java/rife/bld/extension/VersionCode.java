@@ -0,0 +1,98 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Packs a version into a single {@code long}, so that versions can be compared with a single primitive comparison.
+ * <p>
+ * The version is encoded as {@code major << 48 | minor << 32 | revision << 16 | qualifier}, where the qualifier is
+ * encoded as its rank in the upper 4 bits, followed by its number, such as {@code 2} in {@code beta2}. The ranks are
+ * ordered as: unknown, {@code alpha}, {@code beta}, {@code milestone}, {@code rc}, {@code snapshot}, release (no
+ * qualifier) and {@code sp}.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+final class VersionCode {
+    /**
+     * The encoded qualifier of a release.
+     */
+    static final int RELEASE = 6 << 12;
+    /**
+     * The value used when a version cannot be encoded.
+     */
+    static final long UNSUPPORTED = -1L;
+    private static final int MAX_MAJOR = 0x7fff;
+    private static final int MAX_NUMBER = 0xfff;
+    private static final int MAX_PART = 0xffff;
+    private static final Pattern QUALIFIER = Pattern.compile("([a-z]*)[-.]?(\\d*)");
+
+    private VersionCode() {
+        // no-op
+    }
+
+    /**
+     * Encodes the given version.
+     *
+     * @param major     the major version, at most 32767
+     * @param minor     the minor version, at most 65535
+     * @param revision  the revision, at most 65535
+     * @param qualifier the qualifier, may be empty
+     * @return the encoded version, or {@link #UNSUPPORTED} if it is out of range
+     */
+    static long of(int major, int minor, int revision, String qualifier) {
+        if (major < 0 || major > MAX_MAJOR || minor < 0 || minor > MAX_PART || revision < 0 || revision > MAX_PART) {
+            return UNSUPPORTED;
+        }
+        return (long) major << 48 | (long) minor << 32 | (long) revision << 16 | qualifier(qualifier);
+    }
+
+    /**
+     * Encodes the given qualifier.
+     *
+     * @param qualifier the qualifier, may be {@code null} or empty
+     * @return the encoded qualifier
+     */
+    static int qualifier(String qualifier) {
+        if (qualifier == null || qualifier.isEmpty()) {
+            return RELEASE;
+        }
+        var matcher = QUALIFIER.matcher(qualifier.toLowerCase(Locale.ROOT));
+        if (!matcher.matches()) {
+            return 0;
+        }
+        var rank = switch (matcher.group(1)) {
+            case "a", "alpha" -> 1;
+            case "b", "beta" -> 2;
+            case "m", "milestone" -> 3;
+            case "rc", "cr" -> 4;
+            case "snapshot" -> 5;
+            case "", "ga", "final", "release" -> 6;
+            case "sp" -> 7;
+            default -> 0;
+        };
+        var digits = matcher.group(2);
+        var number = 0;
+        if (!digits.isEmpty()) {
+            number = digits.length() > 4 ? MAX_NUMBER : Math.min(Integer.parseInt(digits), MAX_NUMBER);
+        }
+        return rank << 12 | number;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rife.bld.extension;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.io.File;
+import java.nio.file.Path;
+
+/**
+ * An additional output rendered from the same version data, such as a Kotlin object or a JSON file.
+ * <p>
+ * Settings that are not specified are inherited from the {@link GeneratedVersion}.
+ *
+ * @author <a href="https://erik.thauvin.net/">Erik C. Thauvin</a>
+ * @since 1.1
+ */
+public class VersionOutput {
+    private String className_;
+    private File directory_;
+    private String extension_;
+    private File file_;
+    private String packageName_;
+    private File template_;
+    private boolean written_;
+
+    /**
+     * Sets the class name, also used as the file name.
+     *
+     * @param className the class name
+     * @return this output instance
+     */
+    public VersionOutput className(String className) {
+        className_ = className;
+        return this;
+    }
+
+    /**
+     * Returns the class name.
+     *
+     * @return the class name, or {@code null} if inherited
+     */
+    public String className() {
+        return className_;
+    }
+
+    /**
+     * Sets the template path.
+     *
+     * @param template the template path
+     * @return this output instance
+     */
+    @SuppressFBWarnings("PATH_TRAVERSAL_IN")
+    public VersionOutput classTemplate(String template) {
+        return classTemplate(new File(template));
+    }
+
+    /**
+     * Sets the template path.
+     *
+     * @param template the template path
+     * @return this output instance
+     */
+    public VersionOutput classTemplate(File template) {
+        template_ = template;
+        return this;
+    }
+
+    /**
+     * Sets the template path.
+     *
+     * @param template the template path
+     * @return this output instance
+     */
+    public VersionOutput classTemplate(Path template) {
+        return classTemplate(template.toFile());
+    }
+
+    /**
+     * Returns the template path.
+     *
+     * @return the template path, or {@code null} if inherited
+     */
+    public File classTemplate() {
+        return template_;
+    }
+
+    /**
+     * Sets the destination directory.
+     *
+     * @param directory the destination directory
+     * @return this output instance
+     */
+    @SuppressFBWarnings("PATH_TRAVERSAL_IN")
+    public VersionOutput directory(String directory) {
+        return directory(new File(directory));
+    }
+
+    /**
+     * Sets the destination directory.
+     *
+     * @param directory the destination directory
+     * @return this output instance
+     */
+    public VersionOutput directory(File directory) {
+        directory_ = directory;
+        return this;
+    }
+
+    /**
+     * Sets the destination directory.
+     *
+     * @param directory the destination directory
+     * @return this output instance
+     */
+    public VersionOutput directory(Path directory) {
+        return directory(directory.toFile());
+    }
+
+    /**
+     * Returns the destination directory.
+     *
+     * @return the destination directory, or {@code null} if inherited
+     */
+    public File directory() {
+        return directory_;
+    }
+
+    /**
+     * Sets the file extension, such as {@code .kt} or {@code .json}.
+     *
+     * @param extension the file extension
+     * @return this output instance
+     */
+    public VersionOutput extension(String extension) {
+        extension_ = extension;
+        return this;
+    }
+
+    /**
+     * Returns the file extension.
+     *
+     * @return the file extension, or {@code null} if inherited
+     */
+    public String extension() {
+        return extension_;
+    }
+
+    /**
+     * Returns the file this output was last generated to.
+     *
+     * @return the file, or {@code null} if not yet generated
+     */
+    public File file() {
+        return file_;
+    }
+
+    /**
+     * Sets the package name, which determines the subdirectories of the file. Use an empty package name to write the
+     * file directly in the destination directory.
+     *
+     * @param packageName the package name
+     * @return this output instance
+     */
+    public VersionOutput packageName(String packageName) {
+        packageName_ = packageName;
+        return this;
+    }
+
+    /**
+     * Returns the package name.
+     *
+     * @return the package name, or {@code null} if inherited
+     */
+    public String packageName() {
+        return packageName_;
+    }
+
+    /**
+     * Returns whether the file was written when this output was last generated.
+     *
+     * @return {@code true} if written, {@code false} if unchanged or not yet generated
+     */
+    public boolean isWritten() {
+        return written_;
+    }
+
+    void generated(File file, boolean written) {
+        file_ = file;
+        written_ = written;
+    }
+}
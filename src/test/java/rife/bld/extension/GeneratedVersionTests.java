@@ -26,16 +26,37 @@ import org.junit.jupiter.api.io.TempDir;
 import rife.bld.BaseProject;
 import rife.bld.Project;
 import rife.bld.blueprints.BaseProjectBlueprint;
+import rife.bld.dependencies.Dependency;
+import rife.bld.dependencies.Scope;
 import rife.bld.dependencies.VersionNumber;
 import rife.bld.extension.testing.LoggingExtension;
+import rife.bld.operations.exceptions.ExitStatusException;
+import rife.template.TemplateFactory;
 import rife.tools.FileUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DeflaterOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
 
 /**
  * Implements the GeneratedVersionTests class.
@@ -45,6 +66,7 @@ import static org.assertj.core.api.Assertions.assertThat;
  */
 @ExtendWith(LoggingExtension.class)
 class GeneratedVersionTests {
+    private static final String EMPTY_TREE_ID = "4b825dc642cb6eb9a060e54bf8d69288fbee4904";
     @RegisterExtension
     @SuppressWarnings({"unused"})
     private static final LoggingExtension LOGGING_EXTENSION =
@@ -93,6 +115,32 @@ class GeneratedVersionTests {
         return cleanedText1.equals(cleanedText2);
     }
 
+    static void copyFixture(String name, File target) throws IOException {
+        var source = Path.of("src/test/resources/git", name);
+        try (var paths = Files.walk(source)) {
+            for (var path : (Iterable<Path>) paths::iterator) {
+                var copy = target.toPath().resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(copy);
+                } else {
+                    Files.copy(path, copy, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+    }
+
+    static void writeObject(File gitDir, String id, String type, String content) throws IOException {
+        var body = content.getBytes(StandardCharsets.UTF_8);
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DeflaterOutputStream(bytes)) {
+            out.write((type + ' ' + body.length + "\0").getBytes(StandardCharsets.UTF_8));
+            out.write(body);
+        }
+        var object = new File(gitDir, "objects/" + id.substring(0, 2) + '/' + id.substring(2));
+        assertThat(object.getParentFile().mkdirs() || object.getParentFile().isDirectory()).isTrue();
+        Files.write(object.toPath(), bytes.toByteArray());
+    }
+
     @Test
     void generatedVersion() {
         var gv = new GeneratedVersion();
@@ -115,6 +163,298 @@ class GeneratedVersionTests {
         }
     }
 
+    @Nested
+    @DisplayName("Atomic Write Tests")
+    class AtomicWriteTests {
+        @Test
+        void concurrentLockedWrites() throws Exception {
+            var project = new BaseProjectBlueprint(tmpDir, "com.example", "MyExample", "MyExample");
+            var executor = Executors.newFixedThreadPool(8);
+            try {
+                var futures = new ArrayList<Future<Boolean>>();
+                for (var i = 0; i < 32; i++) {
+                    var op = new GeneratedVersionOperation()
+                            .fromProject(project)
+                            .directory(tmpDir)
+                            .epoch(i % 2)
+                            .lock(true);
+                    futures.add(executor.submit(() -> op.generatedVersion().generate()));
+                }
+                for (var future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            var dir = new File(tmpDir, "com/example");
+            assertThat(dir.list()).as("no temporary files").containsExactly("GeneratedVersion.java");
+            assertThat(new File(dir, "GeneratedVersion.java")).content().contains("class GeneratedVersion")
+                    .endsWith("}\n");
+            assertThat(new File(tmpDir, "build/generated-version").list()).as("lock file").hasSize(1)
+                    .allMatch(name -> name.startsWith("GeneratedVersion.java.") && name.endsWith(".lock"));
+        }
+
+        @Test
+        void syncedWrite() throws Exception {
+            var op = new GeneratedVersionOperation().fromProject(PROJECT).directory(tmpDir).sync(true);
+            op.execute();
+
+            var classFile = op.generatedVersion().getClassFile();
+            assertThat(classFile).content().contains("class GeneratedVersion");
+            assertThat(classFile.getParentFile().list()).containsExactly("GeneratedVersion.java");
+        }
+
+        @Test
+        void unchangedWriteIsDiscarded() throws Exception {
+            var op = new GeneratedVersionOperation().fromProject(PROJECT).directory(tmpDir).epoch(0L).sync(true);
+            op.execute();
+
+            var classFile = op.generatedVersion().getClassFile();
+            assertThat(classFile.setLastModified(1000L)).isTrue();
+            op.execute();
+            assertThat(op.timings().phases()).containsKeys(PhaseTimings.RENDER, PhaseTimings.SKIP)
+                    .doesNotContainKey(PhaseTimings.WRITE);
+            assertThat(classFile.lastModified()).as("not replaced").isEqualTo(1000L);
+            assertThat(classFile.getParentFile().list()).as("staged file discarded")
+                    .containsExactly("GeneratedVersion.java");
+        }
+    }
+
+    @Nested
+    @DisplayName("Batch Tests")
+    class BatchTests {
+        @Test
+        void executeBatch() throws Exception {
+            var op = new GeneratedVersionBatchOperation().threads(2);
+            for (var name : new String[]{"alpha", "beta", "gamma"}) {
+                var project = new BaseProjectBlueprint(new File(tmpDir, name), "com.example." + name, name, name);
+                op.operations(new GeneratedVersionOperation().fromProject(project).epoch(0L));
+            }
+            op.execute();
+
+            assertThat(op.results()).hasSize(3).allMatch(GeneratedVersionBatchOperation.Result::isSuccess)
+                    .allMatch(GeneratedVersionBatchOperation.Result::isWritten);
+            assertThat(Path.of(tmpDir.getAbsolutePath(), "beta", "src", "main", "java", "com", "example", "beta",
+                    "GeneratedVersion.java")).content().contains("package com.example.beta;")
+                    .contains("PROJECT = \"beta\";");
+
+            op.execute();
+            assertThat(op.results()).as("unchanged").hasSize(3)
+                    .allMatch(GeneratedVersionBatchOperation.Result::isSuccess)
+                    .noneMatch(GeneratedVersionBatchOperation.Result::isWritten);
+        }
+
+        @Test
+        void executeBatchUpToDate() throws Exception {
+            var project = new BaseProjectBlueprint(tmpDir, "com.example", "Example", "Example");
+            var op = new GeneratedVersionBatchOperation()
+                    .operations(new GeneratedVersionOperation().fromProject(project).epoch(0L).upToDateCheck(true));
+            op.execute();
+            assertThat(op.results()).noneMatch(GeneratedVersionBatchOperation.Result::isUpToDate);
+
+            op.execute();
+            assertThat(op.results()).allMatch(GeneratedVersionBatchOperation.Result::isUpToDate);
+        }
+
+        @Test
+        void executeEmpty() {
+            assertThatThrownBy(() -> new GeneratedVersionBatchOperation().execute())
+                    .isInstanceOf(ExitStatusException.class);
+        }
+
+        @Test
+        void fromProjects() {
+            var op = new GeneratedVersionBatchOperation().fromProjects(PROJECT, PROJECT);
+            assertThat(op.generatedVersions()).hasSize(2).allMatch(gv -> gv.getProject() == PROJECT);
+        }
+    }
+
+    @Nested
+    @DisplayName("Class Output Tests")
+    class ClassOutputTests {
+        @Test
+        void customTemplateNotSupported() {
+            var op = new GeneratedVersionOperation()
+                    .fromProject(PROJECT)
+                    .outputMode(OutputMode.CLASS)
+                    .classesDirectory(tmpDir)
+                    .classTemplate("src/test/resources/version_test.txt");
+            assertThatThrownBy(op::execute).isInstanceOf(ExitStatusException.class);
+        }
+
+        @Test
+        void writeClass() throws Exception {
+            var op = new GeneratedVersionOperation()
+                    .fromProject(PROJECT)
+                    .outputMode(OutputMode.CLASS)
+                    .classesDirectory(tmpDir.toPath())
+                    .epoch(1234567890L);
+            op.execute();
+
+            var classFile = Path.of(tmpDir.getAbsolutePath(), "com", "example", "GeneratedVersion.class").toFile();
+            assertThat(op.generatedVersion().getClassFile()).isEqualTo(classFile);
+
+            try (var loader = new URLClassLoader(new URL[]{tmpDir.toURI().toURL()}, null)) {
+                var versionClass = loader.loadClass("com.example.GeneratedVersion");
+                try (var softly = new AutoCloseableSoftAssertions()) {
+                    softly.assertThat(versionClass.getField("PROJECT").get(null)).isEqualTo("MyExample");
+                    softly.assertThat(versionClass.getField("BUILD_DATE").get(null)).isEqualTo(new Date(1234567890L));
+                    softly.assertThat(versionClass.getField("MAJOR").get(null)).isEqualTo(2);
+                    softly.assertThat(versionClass.getField("MINOR").get(null)).isEqualTo(1);
+                    softly.assertThat(versionClass.getField("REVISION").get(null)).isEqualTo(3);
+                    softly.assertThat(versionClass.getField("QUALIFIER").get(null)).isEqualTo("");
+                    softly.assertThat(versionClass.getField("VERSION").get(null)).isEqualTo("2.1.3");
+                    softly.assertThat(versionClass.getField("VERSION_CODE").get(null))
+                            .isEqualTo(2L << 48 | 1L << 32 | 3L << 16 | VersionCode.RELEASE);
+                }
+
+                var constructor = versionClass.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                assertThatThrownBy(constructor::newInstance).hasCauseInstanceOf(UnsupportedOperationException.class);
+            }
+
+            assertThat(op.generatedVersion().writeClass()).as("unchanged").isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Concurrency Tests")
+    class ConcurrencyTests {
+        @Test
+        void concurrentOperations() throws Exception {
+            var templates = new File[4];
+            for (var i = 0; i < templates.length; i++) {
+                templates[i] = new File(tmpDir, "concurrent_" + i + ".txt");
+                Files.writeString(templates[i].toPath(), "template" + i + " {{v className/}} {{v version/}}");
+            }
+
+            var executor = Executors.newFixedThreadPool(8);
+            try {
+                var futures = new ArrayList<Future<?>>();
+                for (var i = 0; i < 200; i++) {
+                    var index = i;
+                    futures.add(executor.submit(() -> {
+                        var template = templates[index % templates.length];
+                        var op = new GeneratedVersionOperation()
+                                .fromProject(PROJECT)
+                                .directory(new File(tmpDir, "out" + index))
+                                .classTemplate(template)
+                                .className("Version" + index)
+                                .silent(true);
+                        op.execute();
+                        assertThat(op.generatedVersion().getClassFile()).content()
+                                .isEqualTo("template" + (index % templates.length) + " Version" + index + " 2.1.3");
+                        return null;
+                    }));
+                }
+                for (var future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Up-To-Date Tests")
+    class UpToDateTests {
+        private GeneratedVersionOperation operation(long epoch) {
+            return new GeneratedVersionOperation()
+                    .fromProject(new BaseProjectBlueprint(tmpDir, "com.example", "Example", "Example"))
+                    .upToDateCheck(true)
+                    .epoch(epoch);
+        }
+
+        @Test
+        void fingerprintSaved() throws Exception {
+            var op = operation(1000L);
+            op.execute();
+
+            var fingerprint = Path.of(tmpDir.getAbsolutePath(), "build", "generated-version",
+                    "com.example.GeneratedVersion.source.fingerprint");
+            assertThat(fingerprint).exists().content().hasSize(64);
+        }
+
+        @Test
+        void inputsChanged() throws Exception {
+            operation(1000L).execute();
+
+            assertThat(operation(1000L).generatedVersion().isUpToDate()).as("same inputs").isTrue();
+            assertThat(operation(2000L).generatedVersion().isUpToDate()).as("epoch").isFalse();
+            assertThat(operation(1000L).className("OtherVersion").generatedVersion().isUpToDate())
+                    .as("class name").isFalse();
+            assertThat(operation(1000L).outputMode(OutputMode.CLASS).generatedVersion().isUpToDate())
+                    .as("output mode").isFalse();
+        }
+
+        @Test
+        void outputDeleted() throws Exception {
+            var op = operation(1000L);
+            op.execute();
+            assertThat(op.generatedVersion().getClassFile().delete()).isTrue();
+
+            var next = operation(1000L);
+            assertThat(next.generatedVersion().isUpToDate()).isFalse();
+            next.execute();
+            assertThat(next.generatedVersion().getClassFile()).exists();
+        }
+
+        @Test
+        void skipped() throws Exception {
+            var op = operation(1000L);
+            op.execute();
+
+            var classFile = op.generatedVersion().getClassFile();
+            assertThat(classFile.setLastModified(1_000_000_000L)).isTrue();
+            Files.writeString(classFile.toPath(), "modified");
+            assertThat(classFile.setLastModified(1_000_000_000L)).isTrue();
+
+            var next = operation(1000L);
+            next.execute();
+            assertThat(next.generatedVersion().getClassFile()).isEqualTo(classFile).content().isEqualTo("modified");
+        }
+    }
+
+    @Nested
+    @DisplayName("Dependency Tests")
+    class DependencyTests {
+        private GeneratedVersion generatedVersion() {
+            var project = new BaseProjectBlueprint(tmpDir, "com.example", "Example", "Example");
+            project.scope(Scope.compile).include(new Dependency("com.example", "lib", new VersionNumber(1, 0)));
+            project.scope(Scope.compile).include(new Dependency("com.example", "util", new VersionNumber(1, 0)));
+            project.scope(Scope.test).include(new Dependency("org.junit", "junit", new VersionNumber(5)));
+            var gv = new GeneratedVersion();
+            gv.setProject(project);
+            return gv;
+        }
+
+        @Test
+        void dependencyManifest() throws Exception {
+            var gv = generatedVersion();
+            gv.setDependencyScopes(Scope.compile);
+            var content = gv.buildTemplate().getContent();
+            assertThat(content).contains("public static java.util.List<String> dependencies()")
+                    .contains("\"com.example\\nlib\\n1.0\\ncompile\\nutil\"")
+                    .contains("\"\\u0000\\u0001\\u0002\\u0003\\u0000\\u0004\\u0002\\u0003\"")
+                    .doesNotContain("junit");
+        }
+
+        @Test
+        void dependencyManifestDisabled() throws Exception {
+            var content = generatedVersion().buildTemplate().getContent();
+            assertThat(content).doesNotContain("dependencies()").doesNotContain("com.example:lib")
+                    .endsWith("    }\n}\n");
+        }
+
+        @Test
+        void escapeJava() {
+            assertThat(DependencyValueProvider.escapeJava("a\"b\\c\nd\u00e9\u0001"))
+                    .isEqualTo("a\\\"b\\\\c\\nd\\u00e9\\u0001");
+        }
+    }
+
     @Nested
     @DisplayName("Directory Tests")
     class DirectoryTests {
@@ -141,6 +481,126 @@ class GeneratedVersionTests {
         }
     }
 
+    @Nested
+    @DisplayName("Epoch Tests")
+    class EpochTests {
+        private static final String COMMIT_ID = "0123456789abcdef0123456789abcdef01234567";
+        private static final String PACKED_COMMIT_ID = "5428b24ed35caa89e33161d6b3ac201ec40e68cb";
+
+        private GeneratedVersion generatedVersion(File workDirectory) {
+            var gv = new GeneratedVersion();
+            gv.setProject(new BaseProjectBlueprint(workDirectory, "com.example", "Example", "Example"));
+            gv.setDirectory(new File(workDirectory, "src/main/java"));
+            return gv;
+        }
+
+        private void writeCommit(File gitDir) throws IOException {
+            writeObject(gitDir, COMMIT_ID, "commit", "tree " + EMPTY_TREE_ID + "\n" +
+                    "author John Doe <john@example.com> 1700000000 +0100\n" +
+                    "committer John Doe <john@example.com> 1700000123 +0100\n\nInitial commit\n");
+        }
+
+        // commits 88f669f, ba5f50b and 5428b24 are stored as deltas against 7c5664e, the only full commit
+        private void writePack(String fixture) throws IOException {
+            var gitDir = new File(tmpDir, ".git");
+            copyFixture(fixture, new File(gitDir, "objects/pack"));
+            Files.writeString(new File(gitDir, "HEAD").toPath(), "ref: refs/heads/main\n");
+            assertThat(new File(gitDir, "refs/heads").mkdirs()).isTrue();
+            Files.writeString(new File(gitDir, "refs/heads/main").toPath(), PACKED_COMMIT_ID + '\n');
+        }
+
+        @Test
+        void currentTime() {
+            var gv = new GeneratedVersion();
+            gv.setProject(PROJECT);
+            assertThat(gv.getEpochStrategy().epoch(gv)).isCloseTo(System.currentTimeMillis(),
+                    offset(60_000L));
+        }
+
+        @Test
+        void fixed() {
+            var gv = new GeneratedVersion();
+            gv.setProject(PROJECT);
+            gv.setEpochStrategy(EpochStrategy.fixed(1234567890L));
+            assertThat(gv.buildTemplate().getContent()).contains("new Date(1234567890L)");
+        }
+
+        @Test
+        void fixedFromOperation() {
+            var op = new GeneratedVersionOperation().fromProject(PROJECT).epoch(42L);
+            assertThat(op.generatedVersion().getEpochStrategy().epoch(op.generatedVersion())).isEqualTo(42L);
+        }
+
+        @Test
+        void lastCommitLooseRef() throws IOException {
+            var gitDir = new File(tmpDir, ".git");
+            writeCommit(gitDir);
+            Files.writeString(new File(gitDir, "HEAD").toPath(), "ref: refs/heads/main\n");
+            assertThat(new File(gitDir, "refs/heads").mkdirs()).isTrue();
+            Files.writeString(new File(gitDir, "refs/heads/main").toPath(), COMMIT_ID + '\n');
+
+            var gv = generatedVersion(tmpDir);
+            assertThat(EpochStrategy.lastCommit().epoch(gv)).isEqualTo(1700000123000L);
+        }
+
+        @Test
+        void lastCommitPackedRef() throws IOException {
+            var gitDir = new File(tmpDir, ".git");
+            writeCommit(gitDir);
+            Files.writeString(new File(gitDir, "HEAD").toPath(), "ref: refs/heads/main\n");
+            Files.writeString(new File(gitDir, "packed-refs").toPath(),
+                    "# pack-refs with: peeled fully-peeled sorted\n" + COMMIT_ID + " refs/heads/main\n");
+
+            var gv = generatedVersion(new File(tmpDir, "sub"));
+            assertThat(EpochStrategy.lastCommit().epoch(gv)).isEqualTo(1700000123000L);
+        }
+
+        @Test
+        void lastCommitOfsDelta() throws IOException {
+            writePack("pack-ofs");
+            var repository = GitRepository.find(tmpDir);
+            assertThat(repository.head()).isEqualTo(PACKED_COMMIT_ID);
+            assertThat(new String(repository.readObject(PACKED_COMMIT_ID), StandardCharsets.UTF_8))
+                    .startsWith("tree ").contains("parent ba5f50b71b004fdf83402ff24c1015f312a9534d")
+                    .contains("Release 3");
+            assertThat(EpochStrategy.lastCommit().epoch(generatedVersion(tmpDir))).isEqualTo(1700003000000L);
+        }
+
+        @Test
+        void lastCommitRefDelta() throws IOException {
+            writePack("pack-ref");
+            var repository = GitRepository.find(tmpDir);
+            assertThat(repository.head()).isEqualTo(PACKED_COMMIT_ID);
+            assertThat(new String(repository.readObject(PACKED_COMMIT_ID), StandardCharsets.UTF_8))
+                    .startsWith("tree ").contains("parent ba5f50b71b004fdf83402ff24c1015f312a9534d")
+                    .contains("Release 3");
+            assertThat(EpochStrategy.lastCommit().epoch(generatedVersion(tmpDir))).isEqualTo(1700003000000L);
+        }
+
+        @Test
+        void sourceTree() throws IOException {
+            var gv = generatedVersion(tmpDir);
+            var java = new File(tmpDir, "src/main/java/com/example");
+            var resources = new File(tmpDir, "src/main/resources");
+            assertThat(java.mkdirs()).isTrue();
+            assertThat(resources.mkdirs()).isTrue();
+
+            var source = new File(java, "Main.java");
+            var resource = new File(resources, "app.properties");
+            var generated = new File(java, "GeneratedVersion.java");
+            for (var file : new File[]{source, resource, generated}) {
+                Files.writeString(file.toPath(), file.getName());
+            }
+            assertThat(source.setLastModified(1_000_000_000L)).isTrue();
+            assertThat(resource.setLastModified(2_000_000_000L)).isTrue();
+            assertThat(generated.setLastModified(3_000_000_000L)).isTrue();
+
+            gv.setPackageName("com.example");
+            assertThat(EpochStrategy.sourceTree().epoch(gv)).as("generated class excluded")
+                    .isEqualTo(2_000_000_000L);
+        }
+    }
+
     @Nested
     @DisplayName("Execution Tests")
     class ExecutionTests {
@@ -184,6 +644,679 @@ class GeneratedVersionTests {
         }
     }
 
+    @Nested
+    @DisplayName("Git Tests")
+    class GitTests {
+        private static final String COMMIT_ID = "89abcdef0123456789abcdef0123456789abcdef";
+        private static final String INDEX_COMMIT_ID = "f2f5965d5457aadbbc7cbc64ca03e09546604089";
+        private static final long INDEX_MTIME = 1_000_000_000_000L;
+
+        private GeneratedVersion generatedVersion() throws IOException {
+            var template = new File(tmpDir, "git.txt");
+            Files.writeString(template.toPath(), "{{v commit/}}|{{v shortCommit/}}|{{v branch/}}|"
+                    + "{{v commitTime/}}|{{v dirty/}}");
+            var gv = new GeneratedVersion();
+            gv.setProject(new BaseProjectBlueprint(tmpDir, "com.example", "Example", "Example"));
+            gv.setTemplate(template);
+            return gv;
+        }
+
+        private File writeRepository() throws IOException {
+            var gitDir = new File(tmpDir, ".git");
+            writeObject(gitDir, COMMIT_ID, "commit", "tree " + EMPTY_TREE_ID + "\n" +
+                    "committer John Doe <john@example.com> 1700000456 +0100\n\nInitial commit\n");
+            writeObject(gitDir, EMPTY_TREE_ID, "tree", "");
+            assertThat(new File(gitDir, "refs/heads/feature").mkdirs()).isTrue();
+            Files.writeString(new File(gitDir, "refs/heads/feature/git").toPath(), COMMIT_ID + '\n');
+            Files.writeString(new File(gitDir, "HEAD").toPath(), "ref: refs/heads/feature/git\n");
+            return gitDir;
+        }
+
+        private void writeIndexFile(String path, String content) throws IOException {
+            var file = new File(tmpDir, path);
+            assertThat(file.getParentFile().mkdirs() || file.getParentFile().isDirectory()).isTrue();
+            Files.writeString(file.toPath(), content);
+            assertThat(file.setLastModified(INDEX_MTIME)).isTrue();
+        }
+
+        // the fixture indexes were written by git for a work tree whose files all have INDEX_MTIME
+        private File writeIndexRepository(String index) throws IOException {
+            var gitDir = new File(tmpDir, ".git");
+            copyFixture("index/objects", new File(gitDir, "objects"));
+            Files.writeString(new File(gitDir, "HEAD").toPath(), "ref: refs/heads/main\n");
+            var main = new File(gitDir, "refs/heads/main");
+            assertThat(main.getParentFile().mkdirs() || main.getParentFile().isDirectory()).isTrue();
+            Files.writeString(main.toPath(), INDEX_COMMIT_ID + '\n');
+            Files.copy(Path.of("src/test/resources/git/index", index), new File(gitDir, "index").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+
+            writeIndexFile("a.txt", "alpha\n");
+            writeIndexFile("src/main/java/App.java", "class App {}\n");
+            writeIndexFile("src/main/java/AppTest.java", "class AppTest {}\n");
+            writeIndexFile("src/main/resources/app.properties", "key=value\n");
+            return gitDir;
+        }
+
+        @Test
+        void detachedHead() throws Exception {
+            var gitDir = writeRepository();
+            Files.writeString(new File(gitDir, "HEAD").toPath(), COMMIT_ID + '\n');
+            assertThat(generatedVersion().buildTemplate().getContent())
+                    .isEqualTo(COMMIT_ID + "|89abcde|HEAD|1700000456000|false");
+        }
+
+        @Test
+        void gitValues() throws Exception {
+            writeRepository();
+            assertThat(generatedVersion().buildTemplate().getContent())
+                    .isEqualTo(COMMIT_ID + "|89abcde|feature/git|1700000456000|false");
+        }
+
+        @Test
+        void gitValuesNotUsed() throws Exception {
+            var gitDir = writeRepository();
+            // points to a missing commit, which only fails if the repository is read
+            Files.writeString(new File(gitDir, "HEAD").toPath(), EMPTY_TREE_ID.replace('4', '5') + '\n');
+
+            var gv = generatedVersion();
+            gv.setTemplate(null);
+            assertThat(gv.buildTemplate().getContent()).contains("class GeneratedVersion");
+            assertThatThrownBy(() -> generatedVersion().buildTemplate()).hasMessageContaining("Git repository");
+        }
+
+        @Test
+        void indexClean() throws IOException {
+            for (var index : new String[]{"index-v2", "index-v2-tree", "index-v4", "index-v4-tree"}) {
+                writeIndexRepository(index);
+                assertThat(GitRepository.find(tmpDir).isDirty()).as(index).isFalse();
+            }
+        }
+
+        @Test
+        void indexModifiedFile() throws IOException {
+            for (var index : new String[]{"index-v2", "index-v2-tree", "index-v4", "index-v4-tree"}) {
+                writeIndexRepository(index);
+                Files.writeString(new File(tmpDir, "src/main/java/AppTest.java").toPath(), "class AppTest { }\n");
+                assertThat(GitRepository.find(tmpDir).isDirty()).as(index).isTrue();
+            }
+        }
+
+        @Test
+        void indexRacilyCleanFile() throws IOException {
+            var gitDir = writeIndexRepository("index-v2-tree");
+            writeIndexFile("a.txt", "alphx\n");
+            // same size and mtime as the index entry, but not older than the index itself
+            assertThat(new File(gitDir, "index").setLastModified(INDEX_MTIME)).isTrue();
+            assertThat(GitRepository.find(tmpDir).isDirty()).isTrue();
+        }
+
+        @Test
+        void indexSkipWorktree() throws IOException {
+            writeIndexRepository("index-v3-skip");
+            Files.delete(new File(tmpDir, "a.txt").toPath());
+            assertThat(GitRepository.find(tmpDir).isDirty()).as("skip-worktree").isFalse();
+
+            Files.writeString(new File(tmpDir, "src/main/java/App.java").toPath(), "class Ap {}\n");
+            assertThat(GitRepository.find(tmpDir).isDirty()).as("tracked").isTrue();
+        }
+
+        @Test
+        void indexStagedChange() throws IOException {
+            writeIndexRepository("index-v2-staged");
+            writeIndexFile("a.txt", "alphx\n");
+            assertThat(GitRepository.find(tmpDir).isDirty()).isTrue();
+        }
+
+        @Test
+        void indexStatFastPath() throws IOException {
+            writeIndexRepository("index-v4-tree");
+            // matching size and mtime, older than the index: trusted without hashing, as git does
+            writeIndexFile("a.txt", "alphx\n");
+            assertThat(GitRepository.find(tmpDir).isDirty()).isFalse();
+        }
+
+        @Test
+        void untrackedFileIsClean() throws Exception {
+            writeRepository();
+            Files.writeString(new File(tmpDir, "untracked.txt").toPath(), "untracked");
+            assertThat(generatedVersion().buildTemplate().getContent()).endsWith("|false");
+        }
+    }
+
+    @Nested
+    @DisplayName("Output Cache Tests")
+    class OutputCacheTests {
+        private GeneratedVersionOperation operation(String workspace, long epoch) {
+            var project = new BaseProjectBlueprint(new File(tmpDir, workspace), "com.example", "Example", "Example");
+            return new GeneratedVersionOperation().fromProject(project).epoch(epoch)
+                    .outputCache(new File(tmpDir, "cache"));
+        }
+
+        private long entries() throws IOException {
+            try (var files = Files.list(new File(tmpDir, "cache").toPath())) {
+                return files.filter(Files::isDirectory).filter(f -> !f.getFileName().toString().startsWith("."))
+                        .count();
+            }
+        }
+
+        @Test
+        void evictLeastRecentlyUsed() throws Exception {
+            operation("one", 1000L).outputCacheMaxSize(1L).execute();
+            operation("two", 2000L).outputCacheMaxSize(1L).execute();
+            assertThat(entries()).isEqualTo(1);
+
+            var op = operation("three", 2000L);
+            op.execute();
+            assertThat(op.timings().phases()).as("latest kept").containsKey(PhaseTimings.CACHE)
+                    .doesNotContainKey(PhaseTimings.RENDER);
+        }
+
+        @Test
+        void concurrentStores() throws Exception {
+            var cache = new File(tmpDir, "cache").toPath();
+            var output = new File(tmpDir, "Output.java");
+            Files.writeString(output.toPath(), "class Output {}");
+            var key = "0".repeat(64);
+
+            var executor = Executors.newFixedThreadPool(8);
+            try {
+                var start = new CountDownLatch(1);
+                var futures = new ArrayList<Future<?>>();
+                for (var i = 0; i < 8; i++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        OutputCache.store(cache, key, List.of(output), OutputCache.DEFAULT_MAX_SIZE);
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (var future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertThat(entries()).isEqualTo(1);
+            assertThat(OutputCache.lookup(cache, key, 1).content(0)).asString(StandardCharsets.UTF_8)
+                    .isEqualTo("class Output {}");
+        }
+
+        @Test
+        void restoreAcrossWorkspaces() throws Exception {
+            var first = operation("one", 1000L);
+            first.execute();
+            assertThat(first.timings().phases()).containsKey(PhaseTimings.RENDER);
+            assertThat(entries()).isEqualTo(1);
+
+            var second = operation("two", 1000L);
+            second.execute();
+            assertThat(second.timings().phases()).containsKey(PhaseTimings.CACHE)
+                    .doesNotContainKey(PhaseTimings.RENDER);
+            assertThat(second.generatedVersion().getClassFile()).isNotEqualTo(first.generatedVersion().getClassFile())
+                    .hasSameTextualContentAs(first.generatedVersion().getClassFile());
+
+            var linked = operation("three", 1000L).outputCacheLink(true);
+            linked.execute();
+            assertThat(linked.generatedVersion().getClassFile())
+                    .hasSameTextualContentAs(first.generatedVersion().getClassFile());
+        }
+
+        @Test
+        void restoreDifferentInputs() throws Exception {
+            operation("one", 1000L).execute();
+            var op = operation("two", 2000L);
+            op.execute();
+            assertThat(op.timings().phases()).containsKey(PhaseTimings.RENDER);
+            assertThat(op.generatedVersion().getClassFile()).content().contains("new Date(2000L)");
+            assertThat(entries()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Outputs Tests")
+    class OutputsTests {
+        private GeneratedVersionOperation operation(BaseProject project) throws IOException {
+            var kotlin = new File(tmpDir, "version_kt.txt");
+            Files.writeString(kotlin.toPath(), "package {{v packageName/}}\n\n"
+                    + "object {{v className/}} { const val EPOCH = {{v epoch/}}L }\n");
+            var json = new File(tmpDir, "version_json.txt");
+            Files.writeString(json.toPath(), "{\"version\":\"{{v version/}}\",\"epoch\":{{v epoch/}}}");
+            return new GeneratedVersionOperation()
+                    .fromProject(project)
+                    .directory(new File(tmpDir, "java"))
+                    .outputs(new VersionOutput().classTemplate(kotlin).directory(new File(tmpDir, "kotlin"))
+                                    .className("AppVersion").extension(".kt"),
+                            new VersionOutput().classTemplate(json).directory(new File(tmpDir, "dist"))
+                                    .packageName("").className("version").extension(".json"));
+        }
+
+        @Test
+        void outputs() throws Exception {
+            var op = operation(PROJECT);
+            op.execute();
+
+            var outputs = op.generatedVersion().getOutputs();
+            var epoch = op.generatedVersion().epoch();
+            assertThat(op.generatedVersion().getClassFile()).content().contains("new Date(" + epoch + "L)");
+            assertThat(outputs.get(0).file()).isEqualTo(
+                    Path.of(tmpDir.getAbsolutePath(), "kotlin", "com", "example", "AppVersion.kt").toFile());
+            assertThat(outputs.get(0).file()).content().isEqualTo(
+                    "package com.example\n\nobject AppVersion { const val EPOCH = " + epoch + "L }\n");
+            assertThat(outputs.get(1).file()).isEqualTo(new File(tmpDir, "dist/version.json"));
+            assertThat(outputs.get(1).file()).content().isEqualTo(
+                    "{\"version\":\"2.1.3\",\"epoch\":" + epoch + "}");
+            assertThat(outputs).allMatch(VersionOutput::isWritten);
+        }
+
+        @Test
+        void outputsUpToDate() throws Exception {
+            var project = new BaseProjectBlueprint(tmpDir, "com.example", "Example", "Example");
+            operation(project).epoch(1000L).upToDateCheck(true).execute();
+            assertThat(operation(project).epoch(1000L).generatedVersion().isUpToDate()).isTrue();
+
+            assertThat(new File(tmpDir, "dist/version.json").delete()).isTrue();
+            assertThat(operation(project).epoch(1000L).generatedVersion().isUpToDate()).as("output deleted")
+                    .isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Properties Output Tests")
+    class PropertiesOutputTests {
+        private GeneratedVersionOperation operation(BaseProject project) {
+            return new GeneratedVersionOperation()
+                    .fromProject(project)
+                    .outputMode(OutputMode.PROPERTIES)
+                    .directory(new File(tmpDir, "java"))
+                    .resourcesDirectory(new File(tmpDir, "resources"))
+                    .projectName("My App")
+                    .epoch(1000L);
+        }
+
+        @Test
+        void versionBump() throws Exception {
+            var op = operation(PROJECT);
+            op.execute();
+
+            var accessor = op.generatedVersion().getClassFile();
+            assertThat(accessor.setLastModified(1_000_000_000L)).isTrue();
+
+            var bumped = operation(new Project() {
+                @Override
+                public String pkg() {
+                    return "com.example";
+                }
+
+                @Override
+                public VersionNumber version() {
+                    return new VersionNumber(2, 2, 0);
+                }
+            });
+            bumped.execute();
+
+            assertThat(bumped.generatedVersion().getClassFile()).isEqualTo(accessor);
+            assertThat(accessor.lastModified()).as("accessor untouched").isEqualTo(1_000_000_000L);
+            assertThat(bumped.generatedVersion().getPropertiesFile()).content().contains("version=2.2.0");
+        }
+
+        @Test
+        void writeProperties() throws Exception {
+            var op = operation(PROJECT);
+            op.execute();
+
+            var gv = op.generatedVersion();
+            assertThat(gv.getPropertiesFile()).isEqualTo(
+                    Path.of(tmpDir.getAbsolutePath(), "resources", "com", "example", "GeneratedVersion.properties")
+                            .toFile());
+            assertThat(gv.getPropertiesFile()).content().isEqualTo(
+                    "project=My App\nepoch=1000\nmajor=2\nminor=1\nrevision=3\nqualifier=\nversion=2.1.3\n");
+            assertThat(gv.getClassFile()).content().contains("package com.example;")
+                    .contains("public final class GeneratedVersion")
+                    .contains("getResourceAsStream(\"GeneratedVersion.properties\")")
+                    .doesNotContain("2.1.3");
+
+            assertThat(gv.writeProperties()).as("unchanged").isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Registry Tests")
+    class RegistryTests {
+        @Test
+        void executeDuplicateNames() {
+            var op = new GeneratedVersionRegistryOperation().fromProject(PROJECT).fromProjects(PROJECT, PROJECT);
+            assertThatThrownBy(op::execute).isInstanceOf(ExitStatusException.class);
+        }
+
+        @Test
+        void executeEmpty() {
+            var op = new GeneratedVersionRegistryOperation().directory(tmpDir).packageName("com.example");
+            assertThatThrownBy(op::execute).isInstanceOf(ExitStatusException.class);
+        }
+
+        @Test
+        void executeRegistry() throws Exception {
+            var op = new GeneratedVersionRegistryOperation().directory(tmpDir).packageName("com.example")
+                    .className("Modules");
+            for (var name : new String[]{"gamma", "alpha", "beta"}) {
+                var project = new BaseProjectBlueprint(new File(tmpDir, name), "com.example." + name, name, name);
+                op.operations(new GeneratedVersionOperation().fromProject(project).epoch(0L));
+            }
+            op.execute();
+
+            assertThat(op.registryFile()).isEqualTo(Path.of(tmpDir.getAbsolutePath(), "com", "example",
+                    "Modules.java").toFile());
+            var content = Files.readString(op.registryFile().toPath());
+            assertThat(content).contains("package com.example;").contains("public final class Modules {")
+                    .contains("SIZE = 3;")
+                    .contains("NAMES = {\n        \"alpha\",\n        \"beta\",\n        \"gamma\",\n    };")
+                    .contains("EPOCHS = {\n        0L,\n        0L,\n        0L,\n    };");
+
+            var lastModified = op.registryFile().lastModified();
+            op.execute();
+            assertThat(op.registryFile()).as("unchanged").hasContent(content);
+            assertThat(op.registryFile().lastModified()).isEqualTo(lastModified);
+        }
+
+        @Test
+        void executeRegistryCurrentTime() throws Exception {
+            var module = new GeneratedVersionOperation()
+                    .fromProject(new BaseProjectBlueprint(new File(tmpDir, "core"), "com.example", "core", "core"));
+            module.execute();
+            var epoch = module.generatedVersion().epoch();
+            assertThat(module.generatedVersion().getClassFile()).content().contains("new Date(" + epoch + "L)");
+
+            Thread.sleep(10L);
+            var op = new GeneratedVersionRegistryOperation().directory(tmpDir).packageName("com.example")
+                    .operations(module);
+            op.execute();
+            assertThat(op.registryFile()).content().contains("EPOCHS = {\n        " + epoch + "L,\n    };");
+            assertThat(module.generatedVersion().epoch()).as("module untouched").isEqualTo(epoch);
+        }
+
+        @Test
+        void executeRegistryLocked() throws Exception {
+            var project = new BaseProjectBlueprint(tmpDir, "com.example", "host", "host");
+            var op = new GeneratedVersionRegistryOperation().fromProject(project).cacheTemplate(false).lock(true)
+                    .sync(true).operations(new GeneratedVersionOperation().fromProject(project).epoch(0L));
+            op.execute();
+            assertThat(op.timings().phases()).containsKeys(PhaseTimings.RENDER, PhaseTimings.WRITE);
+            assertThat(op.registryFile()).content().contains("public final class VersionRegistry {");
+            assertThat(op.registryFile().getParentFile().list()).containsExactly("VersionRegistry.java");
+            assertThat(new File(tmpDir, "build/generated-version").list()).as("lock file").hasSize(1)
+                    .allMatch(name -> name.startsWith("VersionRegistry.java.") && name.endsWith(".lock"));
+
+            op.execute();
+            assertThat(op.timings().phases()).as("unchanged").containsKey(PhaseTimings.SKIP)
+                    .doesNotContainKey(PhaseTimings.WRITE);
+        }
+
+        @Test
+        void fromProject() {
+            var op = new GeneratedVersionRegistryOperation().fromProject(PROJECT);
+            assertThat(op.directory()).isEqualTo(PROJECT.srcMainJavaDirectory());
+            assertThat(op.packageName()).isEqualTo(PROJECT.pkg());
+            assertThat(op.className()).isEqualTo("VersionRegistry");
+        }
+    }
+
+    @Nested
+    @DisplayName("Render Tests")
+    class RenderTests {
+        @Test
+        void renderBytecode() throws Exception {
+            var rendered = new GeneratedVersionOperation().fromProject(PROJECT).outputMode(OutputMode.CLASS)
+                    .classesDirectory(tmpDir).render();
+            assertThat(rendered).singleElement().extracting(RenderedOutput::path)
+                    .isEqualTo("com/example/GeneratedVersion.class");
+            assertThat(rendered.get(0).buffer().getInt()).isEqualTo(0xCAFEBABE);
+            assertThat(tmpDir.list()).isEmpty();
+        }
+
+        @Test
+        void renderNormalizesLineSeparators() throws Exception {
+            var template = new File(tmpDir, "crlf.txt");
+            Files.writeString(template.toPath(), "{{v project/}}\r\n{{v version/}}\r{{v major/}}\n");
+            var rendered = new GeneratedVersionOperation().fromProject(PROJECT).packageName("")
+                    .classTemplate(template).extension(".txt").render();
+            assertThat(rendered).singleElement().satisfies(r -> {
+                assertThat(r.path()).isEqualTo("GeneratedVersion.txt");
+                assertThat(r.toString()).isEqualTo("MyExample\n2.1.3\n2\n");
+                assertThat(r.bytes()).hasSize(r.size())
+                        .isEqualTo("MyExample\n2.1.3\n2\n".getBytes(StandardCharsets.UTF_8));
+            });
+        }
+
+        @Test
+        void renderProperties() throws Exception {
+            var rendered = new GeneratedVersionOperation().fromProject(PROJECT).outputMode(OutputMode.PROPERTIES)
+                    .directory(tmpDir).resourcesDirectory(tmpDir).render();
+            assertThat(rendered).extracting(RenderedOutput::path)
+                    .containsExactly("com/example/GeneratedVersion.java", "com/example/GeneratedVersion.properties");
+            assertThat(rendered.get(1).toString()).contains("version=2.1.3");
+            assertThat(tmpDir.list()).isEmpty();
+        }
+
+        @Test
+        void renderSourceDigest() throws Exception {
+            var project = new BaseProjectBlueprint(tmpDir, "com.example", "Example", "Example");
+            var sources = new File(tmpDir, "src/main/java/com/example");
+            assertThat(sources.mkdirs()).isTrue();
+            Files.writeString(new File(sources, "Main.java").toPath(), "class Main {}");
+            var template = new File(tmpDir, "digest.txt");
+            Files.writeString(template.toPath(), "{{v sourceDigest/}}");
+
+            var rendered = new GeneratedVersionOperation().fromProject(project).classTemplate(template).render();
+            assertThat(rendered.get(0).toString()).matches("[0-9a-f]{64}");
+            assertThat(project.buildDirectory()).as("no source digest index").doesNotExist();
+        }
+
+        @Test
+        void renderSource() throws Exception {
+            var op = new GeneratedVersionOperation().fromProject(PROJECT).directory(tmpDir).epoch(1234567890L)
+                    .outputs(new VersionOutput().className("version").extension(".json").packageName("dist")
+                            .classTemplate("src/test/resources/version_test.txt"));
+            var rendered = op.render();
+            assertThat(rendered).extracting(RenderedOutput::path)
+                    .containsExactly("com/example/GeneratedVersion.java", "dist/version.json");
+            assertThat(rendered.get(0).toString()).contains("new Date(1234567890L)")
+                    .isEqualTo(op.generatedVersion().buildTemplate().getContent());
+            assertThat(rendered.get(1).toString()).contains("class version");
+            assertThat(tmpDir.list()).isEmpty();
+        }
+
+        @Test
+        void renderWithoutProject() {
+            assertThatThrownBy(() -> new GeneratedVersionOperation().render())
+                    .isInstanceOf(ExitStatusException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Source Digest Tests")
+    class SourceDigestTests {
+        private GeneratedVersion generatedVersion() throws IOException {
+            var template = new File(tmpDir, "digest.txt");
+            Files.writeString(template.toPath(), "{{v sourceDigest/}}");
+            var gv = new GeneratedVersion();
+            gv.setProject(new BaseProjectBlueprint(tmpDir, "com.example", "Example", "Example"));
+            gv.setTemplate(template);
+            return gv;
+        }
+
+        private void writeSources() throws IOException {
+            var java = new File(tmpDir, "src/main/java/com/example");
+            var resources = new File(tmpDir, "src/main/resources");
+            assertThat(java.mkdirs()).isTrue();
+            assertThat(resources.mkdirs()).isTrue();
+            Files.writeString(new File(java, "App.java").toPath(), "class App {}");
+            // large enough to be memory-mapped
+            Files.write(new File(resources, "data.bin").toPath(), new byte[256 * 1024]);
+        }
+
+        @Test
+        void sourceDigest() throws Exception {
+            writeSources();
+            var digest = generatedVersion().buildTemplate().getContent();
+            assertThat(digest).hasSize(64);
+            assertThat(new File(tmpDir, "build/generated-version/" + SourceDigestValueProvider.INDEX)).exists();
+            assertThat(generatedVersion().buildTemplate().getContent()).isEqualTo(digest);
+
+            Files.writeString(new File(tmpDir, "src/main/java/com/example/App.java").toPath(), "class App { }");
+            assertThat(generatedVersion().buildTemplate().getContent()).isNotEqualTo(digest);
+        }
+
+        @Test
+        void sourceDigestExcludesOutput() throws Exception {
+            writeSources();
+            var digest = generatedVersion().buildTemplate().getContent();
+
+            var gv = generatedVersion();
+            gv.setDirectory(new File(tmpDir, "src/main/java"));
+            gv.generate();
+            assertThat(new File(tmpDir, "src/main/java/com/example/GeneratedVersion.java")).exists();
+
+            gv = generatedVersion();
+            gv.setDirectory(new File(tmpDir, "src/main/java"));
+            assertThat(gv.buildTemplate().getContent()).isEqualTo(digest);
+        }
+
+        @Test
+        void sourceDigestWithoutSources() throws Exception {
+            assertThat(generatedVersion().buildTemplate().getContent())
+                    .isEqualTo("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855");
+        }
+    }
+
+    @Nested
+    @DisplayName("Template Cache Tests")
+    class TemplateCacheTests {
+        @Test
+        void cacheDisabled() throws IOException {
+            var template = new File(tmpDir, "uncached.txt");
+            Files.writeString(template.toPath(), "{{v project/}} {{v version/}}");
+
+            var op = new GeneratedVersionOperation().fromProject(PROJECT).classTemplate(template)
+                    .cacheTemplate(false);
+            assertThat(op.generatedVersion().isCacheTemplate()).isFalse();
+            assertThat(op.generatedVersion().buildTemplate().getContent()).isEqualTo("MyExample 2.1.3");
+        }
+
+        @Test
+        void cachedInstancesAreIndependent() {
+            var first = TemplateCache.get(null);
+            var second = TemplateCache.get(null);
+            assertThat(first).isNotSameAs(second);
+
+            first.setValue("project", "First");
+            assertThat(second.getContent()).doesNotContain("First");
+        }
+
+        @Test
+        void builtInAfterCustomWithSameName() throws IOException {
+            var template = new File(tmpDir, TemplateCache.DEFAULT_TEMPLATE + ".txt");
+            Files.writeString(template.toPath(), "custom {{v version/}}");
+
+            assertThat(TemplateCache.compile(template).getContent()).startsWith("custom");
+            assertThat(TemplateCache.compileBuiltIn(TemplateCache.DEFAULT_TEMPLATE).getContent())
+                    .contains("Do not modify!").doesNotContain("custom");
+        }
+
+        @Test
+        void sharedFactoryUntouched() throws IOException {
+            var template = new File(tmpDir, "isolated.txt");
+            Files.writeString(template.toPath(), "isolated {{v version/}}");
+
+            var finder = TemplateFactory.TXT.getResourceFinder();
+            assertThat(TemplateCache.compile(template).getContent()).startsWith("isolated");
+            assertThat(TemplateFactory.TXT.getResourceFinder()).isSameAs(finder);
+        }
+
+        @Test
+        void templateChanged() throws IOException {
+            var template = new File(tmpDir, "cached.txt");
+            Files.writeString(template.toPath(), "first {{v version/}}");
+            assertThat(template.setLastModified(1_000_000_000L)).isTrue();
+
+            var gv = new GeneratedVersion();
+            gv.setProject(PROJECT);
+            gv.setTemplate(template);
+            assertThat(gv.buildTemplate().getContent()).isEqualTo("first 2.1.3");
+            assertThat(gv.buildTemplate().getContent()).as("cached").isEqualTo("first 2.1.3");
+
+            Files.writeString(template.toPath(), "second {{v version/}}");
+            assertThat(template.setLastModified(2_000_000_000L)).isTrue();
+            assertThat(gv.buildTemplate().getContent()).as("recompiled").isEqualTo("second 2.1.3");
+        }
+    }
+
+    @Nested
+    @DisplayName("Template Search Path Tests")
+    class TemplateSearchPathTests {
+        @Test
+        void templateNameFromClasspath() {
+            var op = new GeneratedVersionOperation().fromProject(PROJECT).templatePath(new File(tmpDir, "missing"))
+                    .templateName(TemplateCache.FAST_STARTUP_TEMPLATE);
+            assertThat(op.generatedVersion().buildTemplate().getContent()).contains("public static final long EPOCH");
+        }
+
+        @Test
+        void templateNameNotFound() {
+            var op = new GeneratedVersionOperation().fromProject(PROJECT).templatePath(tmpDir).templateName("missing");
+            assertThatThrownBy(() -> op.generatedVersion().buildTemplate())
+                    .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("missing.txt");
+        }
+
+        @Test
+        void templatePath() throws IOException {
+            var project = new File(tmpDir, "project");
+            var shared = new File(tmpDir, "shared");
+            assertThat(project.mkdirs()).isTrue();
+            assertThat(shared.mkdirs()).isTrue();
+            Files.writeString(new File(shared, "version.txt").toPath(), "shared {{v version/}}");
+            assertThat(project.setLastModified(1_000_000_000L)).isTrue();
+            assertThat(shared.setLastModified(1_000_000_000L)).isTrue();
+
+            var op = new GeneratedVersionOperation().fromProject(PROJECT)
+                    .templatePath(project.toPath(), shared.toPath()).templateName("version");
+            assertThat(op.generatedVersion().buildTemplate().getContent()).isEqualTo("shared 2.1.3");
+            assertThat(op.generatedVersion().buildTemplate().getContent()).as("memoized").isEqualTo("shared 2.1.3");
+
+            // adding a template to the first directory changes its last modified time
+            Files.writeString(new File(project, "version.txt").toPath(), "project {{v version/}}");
+            assertThat(op.generatedVersion().buildTemplate().getContent()).isEqualTo("project 2.1.3");
+        }
+
+        @Test
+        void templatePathSubdirectory() throws IOException {
+            var project = new File(tmpDir, "project");
+            var shared = new File(tmpDir, "shared");
+            assertThat(new File(project, "common").mkdirs()).isTrue();
+            assertThat(new File(shared, "common").mkdirs()).isTrue();
+            Files.writeString(new File(shared, "common/version.txt").toPath(), "shared {{v version/}}");
+            for (var dir : new File[]{project, new File(project, "common"), shared, new File(shared, "common")}) {
+                assertThat(dir.setLastModified(1_000_000_000L)).isTrue();
+            }
+
+            var op = new GeneratedVersionOperation().fromProject(PROJECT)
+                    .templatePath(project, shared).templateName("common/version");
+            assertThat(op.generatedVersion().buildTemplate().getContent()).isEqualTo("shared 2.1.3");
+
+            // only the subdirectory's last modified time changes
+            Files.writeString(new File(project, "common/version.txt").toPath(), "project {{v version/}}");
+            assertThat(project.lastModified()).isEqualTo(1_000_000_000L);
+            assertThat(op.generatedVersion().buildTemplate().getContent()).isEqualTo("project 2.1.3");
+        }
+
+        @Test
+        void templatePathNotUsedWithClassTemplate() {
+            var op = new GeneratedVersionOperation().fromProject(PROJECT).templatePath(tmpDir).templateName("missing")
+                    .classTemplate("src/test/resources/version_test.txt");
+            assertThat(op.generatedVersion().buildTemplate().getContent()).contains("class GeneratedVersion");
+        }
+    }
+
     @Nested
     @DisplayName("Template Tests")
     class TemplateTests {
@@ -235,6 +1368,56 @@ class GeneratedVersionTests {
                     .contains("private GeneratedVersion");
         }
 
+        @Test
+        void buildFastStartupTemplate() {
+            var gv = new GeneratedVersion();
+            gv.setProject(PROJECT);
+            gv.setEpochStrategy(EpochStrategy.fixed(1234567890L));
+            gv.setBuiltInTemplate(BuiltInTemplate.FAST_STARTUP);
+
+            assertThat(gv.buildTemplate().getContent()).contains("class GeneratedVersion")
+                    .contains("public static final long EPOCH = 1234567890L;").contains("VERSION = \"2.1.3\"")
+                    .contains("java.util.Date buildDate()").contains("java.time.Instant buildInstant()")
+                    .doesNotContain("import java.util.Date").doesNotContain("BUILD_DATE");
+        }
+
+        @Test
+        void writeLargeTemplate() throws IOException {
+            var template = new File(tmpDir, "large.txt");
+            Files.writeString(template.toPath(), "{{v project/}}|{{v version/}}");
+            var gv = new GeneratedVersion();
+            gv.setProject(PROJECT);
+            gv.setDirectory(new File(tmpDir, "java"));
+            gv.setTemplate(template);
+            gv.setProjectName("\u00e9".repeat(1_000_000));
+
+            assertThat(gv.writeTemplate(gv.buildTemplate())).isTrue();
+            assertThat(gv.getClassFile()).hasSize(2_000_006L).content(StandardCharsets.UTF_8)
+                    .startsWith("\u00e9\u00e9").endsWith("\u00e9|2.1.3");
+            assertThat(gv.getClassFile().getParentFile().list()).as("no temporary files")
+                    .containsExactly("GeneratedVersion.java");
+            assertThat(gv.writeTemplate(gv.buildTemplate())).as("unchanged").isFalse();
+            assertThat(gv.getClassFile().getParentFile().list()).as("staged file discarded")
+                    .containsExactly("GeneratedVersion.java");
+        }
+
+        @Test
+        void writeTemplateUnchanged() throws IOException {
+            var gv = new GeneratedVersion();
+            gv.setProject(PROJECT);
+            gv.setDirectory(tmpDir);
+            gv.setTemplate(new File("src/test/resources/version_test.txt"));
+
+            assertThat(gv.writeTemplate(gv.buildTemplate())).as("first write").isTrue();
+            assertThat(gv.getClassFile().setLastModified(1000L)).as("set last modified").isTrue();
+
+            assertThat(gv.writeTemplate(gv.buildTemplate())).as("second write").isFalse();
+            assertThat(gv.getClassFile().lastModified()).as("last modified").isEqualTo(1000L);
+
+            gv.setClassName("OtherVersion");
+            assertThat(gv.writeTemplate(gv.buildTemplate())).as("other class").isTrue();
+        }
+
         @Test
         void writeTemplate() throws IOException {
             var gv = new GeneratedVersion();
@@ -252,4 +1435,310 @@ class GeneratedVersionTests {
                     .contains("private GeneratedVersion");
         }
     }
+
+    @Nested
+    @DisplayName("Timings Tests")
+    class TimingsTests {
+        @Test
+        void metricsFile() throws Exception {
+            var metrics = new File(tmpDir, "build/generated-version/metrics.json");
+            var op = new GeneratedVersionOperation()
+                    .fromProject(PROJECT)
+                    .directory(tmpDir)
+                    .metricsFile(metrics);
+            op.execute();
+
+            assertThat(metrics).content().startsWith("{\"phases\":{\"template\":")
+                    .contains("\"values\":").contains("\"render\":").contains("\"directories\":")
+                    .contains("\"write\":").endsWith(",\"unit\":\"ms\"}");
+        }
+
+        @Test
+        void timings() throws Exception {
+            var op = new GeneratedVersionOperation().fromProject(PROJECT).directory(tmpDir);
+            op.execute();
+
+            assertThat(op.timings().phases()).containsOnlyKeys(PhaseTimings.TEMPLATE, PhaseTimings.VALUES,
+                    PhaseTimings.RENDER, PhaseTimings.DIRECTORIES, PhaseTimings.WRITE);
+            assertThat(op.timings().total()).isPositive();
+
+            op.execute();
+            assertThat(op.timings().phases()).as("reset").containsKey(PhaseTimings.SKIP)
+                    .doesNotContainKey(PhaseTimings.WRITE);
+        }
+    }
+
+    @Nested
+    @DisplayName("Value Provider Tests")
+    class ValueProviderTests {
+        private GeneratedVersion generatedVersion(String content) throws IOException {
+            var template = new File(tmpDir, "values.txt");
+            Files.writeString(template.toPath(), content);
+            var gv = new GeneratedVersion();
+            gv.setProject(PROJECT);
+            gv.setTemplate(template);
+            return gv;
+        }
+
+        @Test
+        void concurrentProviders() throws Exception {
+            var latch = new CountDownLatch(2);
+            Callable<Boolean> rendezvous = () -> {
+                latch.countDown();
+                return latch.await(10, TimeUnit.SECONDS);
+            };
+            var gv = generatedVersion("{{v first/}}|{{v second/}}");
+            gv.addValueProviders(ValueProvider.of("first", rendezvous), ValueProvider.of("second", rendezvous));
+
+            assertThat(gv.buildTemplate().getContent()).isEqualTo("true|true");
+        }
+
+        @Test
+        void failingProvider() throws Exception {
+            var gv = generatedVersion("{{v host/}}");
+            gv.addValueProviders(ValueProvider.of("host", () -> {
+                throw new IOException("Unknown host");
+            }));
+
+            assertThatThrownBy(gv::buildTemplate).isInstanceOf(IllegalStateException.class)
+                    .hasMessage("Unknown host");
+        }
+
+        @Test
+        void firstProviderWins() throws Exception {
+            var gv = generatedVersion("{{v host/}}");
+            gv.addValueProviders(ValueProvider.of("host", () -> "first"), ValueProvider.of("host", () -> "second"));
+
+            assertThat(gv.buildTemplate().getContent()).isEqualTo("first");
+        }
+
+        @Test
+        void lazyAndMemoized() throws Exception {
+            var calls = new AtomicInteger();
+            var provider = ValueProvider.of("build", calls::incrementAndGet);
+
+            var unused = new GeneratedVersion();
+            unused.setProject(PROJECT);
+            unused.addValueProviders(provider);
+            unused.buildTemplate();
+            assertThat(calls).as("not referenced").hasValue(0);
+
+            var gv = generatedVersion("build {{v build/}}");
+            gv.addValueProviders(provider);
+            assertThat(gv.buildTemplate().getContent()).isEqualTo("build 1");
+            assertThat(gv.buildTemplate().getContent()).as("memoized").isEqualTo("build 1");
+
+            gv.clearValues();
+            assertThat(gv.buildTemplate().getContent()).as("cleared").isEqualTo("build 2");
+        }
+
+        @Test
+        void operationValueProviders() throws Exception {
+            var template = new File(tmpDir, "values.txt");
+            Files.writeString(template.toPath(), "class {{v className/}} { // {{v ci/}} }");
+            var calls = new AtomicInteger();
+            var op = new GeneratedVersionOperation()
+                    .fromProject(PROJECT)
+                    .directory(tmpDir)
+                    .classTemplate(template)
+                    .valueProviders(ValueProvider.of("ci", () -> "build-" + calls.incrementAndGet()));
+
+            op.execute();
+            op.execute();
+
+            assertThat(op.generatedVersion().getClassFile()).content()
+                    .isEqualTo("class GeneratedVersion { // build-2 }");
+        }
+    }
+
+    @Nested
+    @DisplayName("Version Code Tests")
+    class VersionCodeTests {
+        @Test
+        void qualifierOrder() {
+            assertThat(VersionCode.of(1, 0, 0, "alpha1")).isLessThan(VersionCode.of(1, 0, 0, "alpha2"))
+                    .isGreaterThan(VersionCode.of(1, 0, 0, "custom"));
+            assertThat(VersionCode.of(1, 0, 0, "beta")).isLessThan(VersionCode.of(1, 0, 0, "M1"));
+            assertThat(VersionCode.of(1, 0, 0, "rc-2")).isLessThan(VersionCode.of(1, 0, 0, "SNAPSHOT"));
+            assertThat(VersionCode.of(1, 0, 0, "SNAPSHOT")).isLessThan(VersionCode.of(1, 0, 0, ""));
+            assertThat(VersionCode.of(1, 0, 0, "")).isEqualTo(VersionCode.of(1, 0, 0, "GA"))
+                    .isLessThan(VersionCode.of(1, 0, 0, "sp1"))
+                    .isLessThan(VersionCode.of(1, 0, 1, "alpha"));
+            assertThat(VersionCode.of(1, 65535, 65535, "")).isLessThan(VersionCode.of(2, 0, 0, "alpha"));
+        }
+
+        @Test
+        void unsupportedVersion() {
+            assertThat(VersionCode.of(32768, 0, 0, "")).isEqualTo(VersionCode.UNSUPPORTED);
+            assertThat(VersionCode.of(1, 65536, 0, "")).isEqualTo(VersionCode.UNSUPPORTED);
+
+            var gv = new GeneratedVersion();
+            gv.setProject(new BaseProjectBlueprint(tmpDir, "com.example", "Example", "Example") {
+                @Override
+                public VersionNumber version() {
+                    return new VersionNumber(20_240_101);
+                }
+            });
+            assertThat(gv.buildTemplate().getContent()).contains("VERSION = \"20240101\"")
+                    .doesNotContain("VERSION_CODE").doesNotContain("isAtLeast");
+        }
+
+        @Test
+        void versionCodeMethodsInBuiltInTemplates() {
+            for (var builtInTemplate : BuiltInTemplate.values()) {
+                var gv = new GeneratedVersion();
+                gv.setProject(PROJECT);
+                gv.setBuiltInTemplate(builtInTemplate);
+                assertThat(gv.buildTemplate().getContent()).as(builtInTemplate.name())
+                        .contains("public static long versionCode(int major, int minor, int revision)")
+                        .contains("revision > 0xffff) {\n            return -1L;")
+                        .contains("public static boolean isAtLeast(int major, int minor, int revision)")
+                        .doesNotContain("{{");
+            }
+        }
+
+        @Test
+        void versionCode() {
+            var gv = new GeneratedVersion();
+            gv.setProject(PROJECT);
+            assertThat(gv.buildTemplate().getContent())
+                    .contains("public static final long VERSION_CODE = " + VersionCode.of(2, 1, 3, "") + "L;")
+                    .contains("public static boolean isAtLeast(int major, int minor, int revision)")
+                    .contains("public static int compareTo(long versionCode)")
+                    .contains(Long.toHexString(VersionCode.RELEASE) + 'L');
+        }
+    }
+
+    @Nested
+    @DisplayName("Watch Tests")
+    class WatchTests {
+        private void awaitContent(Path file, String content) throws Exception {
+            var deadline = System.currentTimeMillis() + 10_000L;
+            while (System.currentTimeMillis() < deadline) {
+                if (Files.isRegularFile(file) && content.equals(Files.readString(file))) {
+                    return;
+                }
+                Thread.sleep(20L);
+            }
+            assertThat(file).content().isEqualTo(content);
+        }
+
+        @Test
+        void watchTemplate() throws Exception {
+            var template = new File(tmpDir, "watch.txt");
+            Files.writeString(template.toPath(), "first {{v version/}}");
+            var op = new GeneratedVersionOperation()
+                    .fromProject(PROJECT)
+                    .directory(new File(tmpDir, "java"))
+                    .classTemplate(template)
+                    .watchDebounce(50L);
+            var classFile = Path.of(tmpDir.getAbsolutePath(), "java", "com", "example", "GeneratedVersion.java");
+
+            try (var watcher = op.watcher()) {
+                assertThat(watcher.files()).containsExactly(template.getAbsoluteFile().toPath());
+                var thread = new Thread(() -> {
+                    try {
+                        watcher.watch();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                thread.start();
+
+                awaitContent(classFile, "first 2.1.3");
+                Files.writeString(template.toPath(), "second {{v version/}}");
+                awaitContent(classFile, "second 2.1.3");
+
+                watcher.close();
+                thread.join(10_000L);
+                assertThat(thread.isAlive()).as("stopped").isFalse();
+            }
+        }
+
+        @Test
+        void watchKeepsEpochWhenUnchanged() throws Exception {
+            var template = new File(tmpDir, "watch.txt");
+            Files.writeString(template.toPath(), "{{v epoch/}}");
+            var extra = new File(tmpDir, "extra.properties");
+            Files.writeString(extra.toPath(), "a=1");
+            var op = new GeneratedVersionOperation()
+                    .fromProject(PROJECT)
+                    .directory(new File(tmpDir, "java"))
+                    .classTemplate(template)
+                    .watchFiles(extra)
+                    .watchDebounce(50L);
+            var classFile = Path.of(tmpDir.getAbsolutePath(), "java", "com", "example", "GeneratedVersion.java");
+
+            try (var watcher = op.watcher()) {
+                var thread = new Thread(() -> {
+                    try {
+                        watcher.watch();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                thread.start();
+
+                var deadline = System.currentTimeMillis() + 10_000L;
+                while (!Files.isRegularFile(classFile) && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(20L);
+                }
+                var epoch = Files.readString(classFile);
+                Thread.sleep(20L);
+                Files.writeString(extra.toPath(), "a=2");
+                Thread.sleep(1000L);
+                assertThat(classFile).as("build time kept").hasContent(epoch);
+
+                Files.writeString(template.toPath(), "changed");
+                awaitContent(classFile, "changed");
+
+                watcher.close();
+                thread.join(10_000L);
+            }
+        }
+
+        @Test
+        void watchTemplatePath() throws Exception {
+            var project = new File(tmpDir, "project");
+            var shared = new File(tmpDir, "shared");
+            assertThat(project.mkdirs()).isTrue();
+            assertThat(shared.mkdirs()).isTrue();
+            Files.writeString(new File(shared, "version.txt").toPath(), "shared {{v version/}}");
+            var op = new GeneratedVersionOperation()
+                    .fromProject(PROJECT)
+                    .directory(new File(tmpDir, "java"))
+                    .templatePath(project, shared)
+                    .templateName("version")
+                    .watchDebounce(50L);
+            var classFile = Path.of(tmpDir.getAbsolutePath(), "java", "com", "example", "GeneratedVersion.java");
+
+            try (var watcher = op.watcher()) {
+                assertThat(watcher.files()).containsExactlyInAnyOrder(
+                        new File(project, "version.txt").getAbsoluteFile().toPath(),
+                        new File(shared, "version.txt").getAbsoluteFile().toPath());
+                var thread = new Thread(() -> {
+                    try {
+                        watcher.watch();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                thread.start();
+
+                awaitContent(classFile, "shared 2.1.3");
+                // added to an earlier directory of the search path
+                Files.writeString(new File(project, "version.txt").toPath(), "project {{v version/}}");
+                awaitContent(classFile, "project 2.1.3");
+
+                watcher.close();
+                thread.join(10_000L);
+            }
+        }
+
+        @Test
+        void watcherWithoutProject() {
+            assertThatThrownBy(() -> new GeneratedVersionOperation().watcher())
+                    .isInstanceOf(ExitStatusException.class);
+        }
+    }
 }